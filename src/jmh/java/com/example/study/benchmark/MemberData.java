@@ -0,0 +1,54 @@
+package com.example.study.benchmark;
+
+import com.example.study.QuerydslApplication;
+import com.example.study.service.MemberSeeder;
+import com.example.study.service.SeedProperties;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+//벤치마크마다 내장 메모리 H2에 dataSize명의 회원을 넣은 애플리케이션 컨텍스트를 띄운다
+@State(Scope.Benchmark)
+public class MemberData {
+
+    @Param({"1000", "10000", "100000"})
+    public int dataSize;
+
+    public ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=bench",
+                        "--spring.datasource.url=jdbc:h2:mem:bench" + dataSize + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--decorator.datasource.enabled=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn",
+                        //결과 캐시가 켜져 있으면 쿼리가 아니라 캐시 조회를 재게 된다
+                        "--app.member.search-cache.enabled=false");
+
+        SeedProperties seed = new SeedProperties();
+        seed.setMemberCount(dataSize);
+        seed.setTeamCount(10);
+        seed.setAgeDistribution(SeedProperties.AgeDistribution.UNIFORM);
+        context.getBean(MemberSeeder.class).seed(seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.study.benchmark;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.MemberTeamDto;
+import com.example.study.dto.QMemberTeamDto;
+import com.example.study.repository.MemberJpaRepository;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+import static org.springframework.util.StringUtils.isEmpty;
+
+//BooleanBuilder vs where 파라미터, 그리고 QueryShapeCache 적용 전/후 비교
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberSearchBenchmark {
+
+    MemberJpaRepository memberJpaRepository;
+    JPAQueryFactory queryFactory;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberData data) {
+        memberJpaRepository = data.getBean(MemberJpaRepository.class);
+        queryFactory = new JPAQueryFactory(data.getBean(EntityManager.class));
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(29);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> whereParam() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> booleanBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    //QueryShapeCache 없이 매번 쿼리를 만들고 직렬화하는 원래 방식
+    //캐시만 다르도록 조인과 조건 검사는 각각 search, searchByBuilder와 똑같이 만든다
+    @Benchmark
+    public List<MemberTeamDto> whereParamUncached() {
+        return joinTeam(queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member), !isEmpty(condition.getTeamName()))
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> booleanBuilderUncached() {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (hasText(condition.getUsername())) {
+            builder.and(member.username.eq(condition.getUsername()));
+        }
+        if (hasText(condition.getTeamName())) {
+            builder.and(team.name.eq(condition.getTeamName()));
+        }
+        if (condition.getAgeGoe() != null) {
+            builder.and(member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            builder.and(member.age.loe(condition.getAgeLoe()));
+        }
+        return joinTeam(queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member), hasText(condition.getTeamName()))
+                .where(builder)
+                .fetch();
+    }
+
+    //MemberJpaRepository.joinTeam과 같다 - 팀 이름 조건이 있으면 inner join
+    private static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, boolean teamName) {
+        return teamName ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return isEmpty(username) ? null : member.username.eq(username);
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return isEmpty(teamName) ? null : team.name.eq(teamName);
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe == null ? null : member.age.goe(ageGoe);
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe == null ? null : member.age.loe(ageLoe);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.study.benchmark;
+
+import com.example.study.entity.Member;
+import com.example.study.repository.MemberJpaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//엔티티 조회를 읽기 전용 트랜잭션과 쓰기 트랜잭션에서 비교 - 스냅샷과 커밋 시 변경 감지 비용 차이
+//-prof gc 결과의 gc.alloc.rate.norm으로 스냅샷 할당량 차이를 확인한다
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyQueryBenchmark {
+
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberData data) {
+        memberJpaRepository = data.getBean(MemberJpaRepository.class);
+        PlatformTransactionManager transactionManager = data.getBean(PlatformTransactionManager.class);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @Benchmark
+    public List<Member> readOnlyTransaction() {
+        return readOnly.execute(status -> memberJpaRepository.findAll_Querydsl());
+    }
+
+    @Benchmark
+    public List<Member> readWriteTransaction() {
+        return readWrite.execute(status -> memberJpaRepository.findAll_Querydsl());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.study.benchmark;
+
+import com.example.study.dto.MemberRankDto;
+import com.example.study.dto.MemberTeamAvgDto;
+import com.example.study.dto.MemberTeamDto;
+import com.example.study.dto.QMemberTeamDto;
+import com.example.study.entity.QMember;
+import com.example.study.repository.MemberJpaRepository;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//팀 안 순위 / 팀 평균 이상 회원: 윈도 함수 한 번 vs 회원마다 팀 단위 상관 서브쿼리
+//1M건 비교: java -jar build/libs/study-0.0.1-SNAPSHOT-jmh.jar WindowFunctionBenchmark -p dataSize=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class WindowFunctionBenchmark {
+
+    MemberJpaRepository memberJpaRepository;
+    JPAQueryFactory queryFactory;
+    QMember memberSub = new QMember("memberSub");
+
+    @Setup(Level.Trial)
+    public void setUp(MemberData data) {
+        memberJpaRepository = data.getBean(MemberJpaRepository.class);
+        queryFactory = new JPAQueryFactory(data.getBean(EntityManager.class));
+    }
+
+    @Benchmark
+    public List<MemberRankDto> rankWindowFunction() {
+        return memberJpaRepository.findRankByAgeWithinTeam();
+    }
+
+    //순위 = 1 + 같은 팀에서 나보다 나이가 많은 회원 수
+    @Benchmark
+    public List<Tuple> rankCorrelatedSubquery() {
+        return queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name,
+                        JPAExpressions
+                                .select(memberSub.count().add(1))
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team), memberSub.age.gt(member.age)))
+                .from(member)
+                .join(member.team, team)
+                .orderBy(team.id.asc(), member.age.desc(), member.id.asc())
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamAvgDto> aboveAverageWindowFunction() {
+        return memberJpaRepository.findOlderThanTeamAverage();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> aboveAverageCorrelatedSubquery() {
+        return queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(member.age.gt(JPAExpressions
+                        .select(memberSub.age.avg())
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team))))
+                .orderBy(team.id.asc(), member.age.desc(), member.id.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.study.config;
+
+import com.example.study.repository.PageQueryProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+    //툴체인이 Java 17이므로 Java 21 이상에서 실행될 때만 가상 스레드를 쓰고, 그 전에는 크기가 고정된 스레드 풀을 쓴다
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pageQueryExecutor(PageQueryProperties properties) {
+        if (properties.getPlatformThreads() < 1) {
+            throw new IllegalArgumentException("platformThreads는 1 이상이어야 합니다: " + properties.getPlatformThreads());
+        }
+        if (Runtime.version().feature() >= 21) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("가상 스레드 실행기를 만들 수 없습니다", e);
+            }
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("page-query-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(properties.getPlatformThreads(), threadFactory);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.study.config;
+
+import com.example.study.repository.TableWriteInspector;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(TableWriteInspector tableWriteInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, tableWriteInspector);
+    }
+
+    //2차 캐시 리전이 담기는 CacheManager를 빈으로 두고 Hibernate에 넘겨야 CacheMetrics에서 리전 통계를 읽을 수 있다
+    @Bean
+    public CacheManager hibernateCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
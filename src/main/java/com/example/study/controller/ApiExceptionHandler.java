@@ -0,0 +1,21 @@
+package com.example.study.controller;
+
+import com.example.study.dto.InvalidSearchRequestException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+//모든 컨트롤러에 공통인 예외 응답 - 내부에서 난 다른 예외의 메시지는 클라이언트에 돌려주지 않는다
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(InvalidSearchRequestException.class)
+    public ResponseEntity<String> invalidSearch(InvalidSearchRequestException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<String> badRequest(BadRequestException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
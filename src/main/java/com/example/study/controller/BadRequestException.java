@@ -0,0 +1,9 @@
+package com.example.study.controller;
+
+//컨트롤러가 직접 검사한 요청 파라미터가 잘못됨 - ApiExceptionHandler가 400으로 돌려준다
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
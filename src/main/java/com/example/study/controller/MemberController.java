@@ -1,21 +1,112 @@
 package com.example.study.controller;
 
+import com.example.study.dto.CacheStatsDto;
+import com.example.study.dto.CursorPage;
+import com.example.study.dto.MemberImportResult;
 import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.MemberSortKey;
 import com.example.study.dto.MemberTeamDto;
 import com.example.study.repository.MemberJpaRepository;
+import com.example.study.repository.MemberSearchCache;
+import com.example.study.service.MemberImportException;
+import com.example.study.service.MemberImporter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
     private final MemberJpaRepository memberJpaRepository;
+    private final MemberSearchCache memberSearchCache;
+    private final MemberImporter memberImporter;
+    private final ObjectMapper objectMapper;
+    private final MemberExportProperties exportProperties;
 
+    //sort=age,desc&sort=username 처럼 받는다 (id, age, username, teamName만 허용)
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, Sort sort) {
+        return memberJpaRepository.search(condition, sort);
+    }
+
+    @GetMapping("/v1/members/search-cache/stats")
+    public CacheStatsDto searchCacheStats() {
+        return new CacheStatsDto(memberSearchCache.size(), memberSearchCache.stats());
+    }
+
+    @GetMapping("/v2/members")
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+        return memberJpaRepository.searchPage(condition, pageable);
+    }
+
+    @GetMapping("/v2/members/concurrent")
+    public Page<MemberTeamDto> searchMemberV2Concurrent(MemberSearchCondition condition, Pageable pageable) {
+        return memberJpaRepository.searchPageConcurrently(condition, pageable);
+    }
+
+    @GetMapping("/v3/members")
+    public CursorPage<MemberTeamDto> searchMemberV3(MemberSearchCondition condition,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "ID") MemberSortKey sort,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        return memberJpaRepository.searchByCursor(condition, cursor, sort, size);
+    }
+
+    //한 줄에 MemberTeamDto 하나씩 NDJSON으로 바로 써서 결과 크기와 상관없이 힙 사용량을 일정하게 유지
+    @GetMapping(value = "/v1/members/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportMembers(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            memberJpaRepository.searchStream(condition, exportProperties.getFetchSize(), row -> {
+                try {
+                    writer.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    //file: username,age,teamName 형식의 CSV - 실패 응답의 resumeFrom을 넘겨 다시 요청하면 이어서 적재한다
+    @PostMapping("/v1/members/import")
+    public MemberImportResult importMembers(@RequestParam MultipartFile file,
+                                            @RequestParam(defaultValue = "0") long resumeFrom) throws IOException {
+        if (resumeFrom < 0) {
+            throw new BadRequestException("resumeFrom은 0 이상이어야 합니다: " + resumeFrom);
+        }
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return memberImporter.importCsv(reader, resumeFrom);
+        }
+    }
+
+    @ExceptionHandler(MemberImportException.class)
+    public ResponseEntity<MemberImportResult> importFailed(MemberImportException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getResult());
     }
 }
@@ -0,0 +1,12 @@
+package com.example.study.controller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.member.export")
+public class MemberExportProperties {
+    //NDJSON 내보내기에서 JDBC 드라이버가 한 번에 가져오는 row 수
+    private int fetchSize = 1000;
+}
@@ -0,0 +1,31 @@
+package com.example.study.controller;
+
+import com.example.study.dto.SqlStatsDto;
+import com.example.study.sql.SlowQueryLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class SqlStatsController {
+    private final SlowQueryLog slowQueryLog;
+
+    //DB 시간을 가장 많이 쓴 SQL fingerprint
+    @GetMapping("/v1/sql/top")
+    public List<SqlStatsDto> top(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("limit은 1 이상이어야 합니다: " + limit);
+        }
+        return slowQueryLog.top(limit);
+    }
+
+    @DeleteMapping("/v1/sql/top")
+    public void reset() {
+        slowQueryLog.reset();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.study.controller;
+
+import com.example.study.dto.TeamMembersDto;
+import com.example.study.dto.TeamStatsDto;
+import com.example.study.repository.TeamJpaRepository;
+import com.example.study.service.TeamStatsSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamJpaRepository teamJpaRepository;
+    private final TeamStatsSummary teamStatsSummary;
+
+    @GetMapping("/v1/teams")
+    public List<TeamMembersDto> teamsWithMembers(Pageable pageable) {
+        return teamJpaRepository.findTeamsWithMembers(pageable);
+    }
+
+    //회원을 스캔하지 않고 메모리에 유지한 요약에서 바로 돌려준다
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsSummary.findAll();
+    }
+}
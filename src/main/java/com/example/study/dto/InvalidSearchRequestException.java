@@ -0,0 +1,13 @@
+package com.example.study.dto;
+
+//클라이언트가 보낸 검색 요청 값(커서, 정렬, 페이지 크기 등)이 잘못됨 - ApiExceptionHandler가 400으로 돌려준다
+public class InvalidSearchRequestException extends RuntimeException {
+
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.study.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//마지막으로 읽은 행의 정렬 키 값과 member_id를 담는 불투명 커서
+@Getter
+public class MemberCursor {
+    private static final String NULL_VALUE = "-";
+    private static final String VALUE_PREFIX = "=";
+
+    private final MemberSortKey sortKey;
+    private final Long lastMemberId;
+    private final Integer lastAge;
+    private final String lastUsername;
+
+    private MemberCursor(MemberSortKey sortKey, Long lastMemberId, Integer lastAge, String lastUsername) {
+        this.sortKey = sortKey;
+        this.lastMemberId = lastMemberId;
+        this.lastAge = lastAge;
+        this.lastUsername = lastUsername;
+    }
+
+    public static MemberCursor after(MemberSortKey sortKey, MemberTeamDto last) {
+        return new MemberCursor(sortKey, last.getMemberId(), last.getAge(), last.getUsername());
+    }
+
+    public String encode() {
+        String value = switch (sortKey) {
+            case ID -> "";
+            case AGE -> String.valueOf(lastAge);
+            case USERNAME -> lastUsername == null ? NULL_VALUE : VALUE_PREFIX + lastUsername;
+        };
+        String raw = sortKey.name() + ":" + lastMemberId + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            MemberSortKey sortKey = MemberSortKey.valueOf(parts[0]);
+            Long lastMemberId = Long.valueOf(parts[1]);
+            return switch (sortKey) {
+                case ID -> new MemberCursor(sortKey, lastMemberId, null, null);
+                case AGE -> new MemberCursor(sortKey, lastMemberId, Integer.valueOf(parts[2]), null);
+                case USERNAME -> new MemberCursor(sortKey, lastMemberId, null,
+                        parts[2].equals(NULL_VALUE) ? null : parts[2].substring(VALUE_PREFIX.length()));
+            };
+        } catch (RuntimeException e) {
+            throw new InvalidSearchRequestException("잘못된 커서입니다: " + cursor, e);
+        }
+    }
+}
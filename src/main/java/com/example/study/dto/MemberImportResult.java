@@ -0,0 +1,18 @@
+package com.example.study.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//CSV 적재 결과 - 실패하면 error가 채워지고, resumeFrom부터 다시 요청하면 이어서 적재한다
+@Data
+@AllArgsConstructor
+public class MemberImportResult {
+    //이번 요청에서 커밋한 행 수
+    private long importedRows;
+    //파일 처음부터 커밋이 끝난 데이터 행 수 (헤더 제외) - 다음 요청의 resumeFrom
+    private long resumeFrom;
+    private int createdTeams;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private String error;
+}
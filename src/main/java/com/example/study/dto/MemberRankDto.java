@@ -0,0 +1,25 @@
+package com.example.study.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+//팀 안에서 나이가 많은 순의 순위 (같은 나이는 같은 순위)
+@Data
+public class MemberRankDto {
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private long rank;
+
+    @QueryProjection
+    public MemberRankDto(Long memberId, String username, int age, Long teamId, String teamName, long rank) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.rank = rank;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.study.dto;
+
+//커서 기반 페이징에서 사용할 수 있는 정렬 키 (항상 member_id가 마지막 정렬 기준)
+public enum MemberSortKey {
+    ID,
+    AGE,
+    USERNAME
+}
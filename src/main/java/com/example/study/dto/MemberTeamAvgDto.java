@@ -0,0 +1,23 @@
+package com.example.study.dto;
+
+import lombok.Data;
+
+//회원과 그 회원이 속한 팀의 평균 나이
+@Data
+public class MemberTeamAvgDto {
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private double teamAvg;
+
+    public MemberTeamAvgDto(Long memberId, String username, int age, Long teamId, String teamName, double teamAvg) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.teamAvg = teamAvg;
+    }
+}
@@ -1,15 +1,16 @@
 package com.example.study.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
-import lombok.Data;
+import lombok.Value;
 
-@Data
+//MemberSearchCache가 같은 인스턴스를 여러 요청에 돌려주므로 값을 바꿀 수 없게 둔다
+@Value
 public class MemberTeamDto {
-    private Long memberId;
-    private String username;
-    private int age;
-    private Long teamId;
-    private String teamName;
+    Long memberId;
+    String username;
+    int age;
+    Long teamId;
+    String teamName;
 
     @QueryProjection
     public MemberTeamDto(Long memberId, String username, int age, Long teamId, String teamName) {
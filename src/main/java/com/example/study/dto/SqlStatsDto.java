@@ -0,0 +1,19 @@
+package com.example.study.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//fingerprint 하나의 실행 통계 - 백분위수는 최근 windowSize번의 실행 기준
+@Data
+@AllArgsConstructor
+public class SqlStatsDto {
+    private String fingerprint;
+    private long count;
+    private long slowCount;
+    private double totalMillis;
+    private double meanMillis;
+    private double p50Millis;
+    private double p95Millis;
+    private double p99Millis;
+    private double maxMillis;
+}
@@ -0,0 +1,17 @@
+package com.example.study.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//팀별 회원 나이 통계 - 회원이 없는 팀은 count 0, 나머지는 null
+@Data
+@AllArgsConstructor
+public class TeamStatsDto {
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long sum;
+    private Double avg;
+    private Integer max;
+    private Integer min;
+}
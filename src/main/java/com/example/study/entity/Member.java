@@ -3,14 +3,24 @@ package com.example.study.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
 
+//검색 조건(username, team_id + age, age)용 인덱스
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age", columnList = "age")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    //pooled 옵티마이저: 시퀀스를 한 번 읽을 때마다 allocationSize개의 id를 메모리에서 할당
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100)
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -38,8 +48,15 @@ public class Member {
         }
     }
 
+    //연관관계 편의 메서드 - 양쪽을 맞추되 아직 로딩되지 않은 Team이나 members 컬렉션은 초기화하지 않는다
+    //로딩되지 않은 쪽은 나중에 조회될 때 DB의 team_id 기준으로 채워진다
     public void changeTeam(Team team){
+        if (this.team != null && Hibernate.isInitialized(this.team)) {
+            this.team.removeMember(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (Hibernate.isInitialized(team)) {
+            team.addMember(this);
+        }
     }
 }
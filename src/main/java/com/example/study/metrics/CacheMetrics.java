@@ -0,0 +1,70 @@
+package com.example.study.metrics;
+
+import com.example.study.entity.Team;
+import com.example.study.repository.MemberSearchCache;
+import com.example.study.repository.QueryShapeCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CompleteConfiguration;
+
+//검색 결과 캐시, 쿼리 shape 캐시, Team 2차 캐시 리전의 적중/미스를 대시보드에서 볼 수 있게 등록한다
+//2차 캐시 리전은 Hibernate가 부팅할 때 만들므로 entityManagerFactory 이후에 생성한다
+@Component
+@DependsOn("entityManagerFactory")
+public class CacheMetrics implements MeterBinder {
+    //엔티티 리전 이름은 기본값인 엔티티 클래스 이름을 쓴다
+    static final String TEAM_REGION = Team.class.getName();
+
+    private final MemberSearchCache memberSearchCache;
+    private final QueryShapeCache queryShapeCache;
+    private final CacheManager hibernateCacheManager;
+
+    public CacheMetrics(MemberSearchCache memberSearchCache, QueryShapeCache queryShapeCache,
+                        CacheManager hibernateCacheManager) {
+        this.memberSearchCache = memberSearchCache;
+        this.queryShapeCache = queryShapeCache;
+        this.hibernateCacheManager = hibernateCacheManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("member.search.cache.requests", memberSearchCache, cache -> cache.stats().hitCount())
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("member.search.cache.requests", memberSearchCache, cache -> cache.stats().missCount())
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("member.search.cache.evictions", memberSearchCache, cache -> cache.stats().evictionCount())
+                .register(registry);
+        Gauge.builder("member.search.cache.size", memberSearchCache, MemberSearchCache::size)
+                .register(registry);
+
+        FunctionCounter.builder("query.shape.cache.requests", queryShapeCache, QueryShapeCache::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("query.shape.cache.requests", queryShapeCache, QueryShapeCache::getMissCount)
+                .tag("result", "miss").register(registry);
+
+        bindSecondLevelCacheRegion(registry, TEAM_REGION);
+    }
+
+    //JCacheMetrics는 JCache 통계 MXBean을 읽는다. Hibernate는 리전을 기본 설정으로 만들어
+    //application.conf의 monitoring.statistics가 적용되지 않을 수 있으므로 여기서 직접 켠다
+    //cache.gets(result=hit/miss), cache.puts 등이 cache=<리전 이름> 태그로 등록된다
+    private void bindSecondLevelCacheRegion(MeterRegistry registry, String region) {
+        Cache<Object, Object> cache = hibernateCacheManager.getCache(region);
+        if (cache == null) {
+            return;
+        }
+        if (!cache.getConfiguration(CompleteConfiguration.class).isStatisticsEnabled()) {
+            hibernateCacheManager.enableStatistics(region, true);
+        }
+        JCacheMetrics.monitor(registry, cache, Tags.empty());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.study.metrics;
+
+import com.example.study.dto.CursorPage;
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.sql.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.isEmpty;
+
+//리포지토리 메서드별 실행 시간, 반환 행 수, 실행된 SQL 수를 기록한다
+//태그의 shape는 MemberSearchCondition 중 값이 있는 조건 조합 (예: teamName+ageGoe)
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+    private final MeterRegistry registry;
+
+    public RepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(com.example.study.repository..*) && @within(org.springframework.stereotype.Repository) "
+            + "&& execution(public * *(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "repository", joinPoint.getTarget().getClass().getSimpleName(),
+                "method", joinPoint.getSignature().getName(),
+                "shape", shape(joinPoint.getArgs()));
+        long statementsBefore = SqlStatementCounter.current();
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            recordRows(tags, result);
+            return result;
+        } finally {
+            sample.stop(Timer.builder("repository.calls")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            DistributionSummary.builder("repository.statements")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(SqlStatementCounter.current() - statementsBefore);
+        }
+    }
+
+    private void recordRows(Tags tags, Object result) {
+        Integer rows = rows(result);
+        if (rows == null) {
+            return;
+        }
+        DistributionSummary.builder("repository.rows")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(rows);
+    }
+
+    private static Integer rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof CursorPage<?> page) {
+            return page.getContent().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return null;
+    }
+
+    private static String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition condition) {
+                StringJoiner shape = new StringJoiner("+");
+                if (!isEmpty(condition.getUsername())) {
+                    shape.add("username");
+                }
+                if (!isEmpty(condition.getTeamName())) {
+                    shape.add("teamName");
+                }
+                if (condition.getAgeGoe() != null) {
+                    shape.add("ageGoe");
+                }
+                if (condition.getAgeLoe() != null) {
+                    shape.add("ageLoe");
+                }
+                return shape.length() == 0 ? "none" : shape.toString();
+            }
+        }
+        return "n/a";
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.study.repository;
+
+//엔티티 이벤트를 거치지 않는 벌크 update/delete가 커밋(또는 롤백)된 뒤 알림을 받는다
+public interface BulkWriteListener {
+
+    void onBulkWrite();
+}
@@ -0,0 +1,111 @@
+package com.example.study.repository;
+
+import com.example.study.sql.SqlStatementCounter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+//페이지 content 쿼리와 count 쿼리를 서로 다른 스레드에서 동시에 실행한다
+//각 쿼리는 자기 스레드의 읽기 전용 트랜잭션(= 별도 EntityManager)에서 실행되므로
+//호출한 쪽 트랜잭션의 flush 되지 않은 변경은 보이지 않는다
+//두 쿼리의 SQL은 호출한 스레드의 SqlStatementCounter와 SqlStatementScope에 더해진다
+@Component
+public class ConcurrentPageQuery {
+    private final ExecutorService executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration timeout;
+
+    public ConcurrentPageQuery(@Qualifier("pageQueryExecutor") ExecutorService executor,
+                               PlatformTransactionManager transactionManager,
+                               PageQueryProperties properties) {
+        if (properties.getTimeout().compareTo(Duration.ZERO) <= 0) {
+            throw new IllegalArgumentException("timeout은 0보다 커야 합니다: " + properties.getTimeout());
+        }
+        this.executor = executor;
+        this.timeout = properties.getTimeout();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        //트랜잭션 타임아웃은 그 안에서 실행되는 쿼리의 JDBC 타임아웃으로도 적용된다
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, timeout.toSeconds()));
+    }
+
+    public <T> Page<T> fetchPage(Pageable pageable, Supplier<List<T>> contentQuery, LongSupplier countQuery) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        //먼저 실패한 쿼리의 예외 - 완료되는 즉시 나머지 쿼리를 취소해서 결과를 기다리는 쪽도 바로 깨운다
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        Future<List<T>> content = executor.submit(
+                failFast(failure, () -> readOnlyTransaction.execute(status -> contentQuery.get())));
+        Future<Long> count = executor.submit(
+                failFast(failure, () -> readOnlyTransaction.execute(status -> countQuery.getAsLong())));
+        failure.whenComplete((ignored, e) -> {
+            content.cancel(true);
+            count.cancel(true);
+        });
+        try {
+            List<T> rows = await(content, deadline, failure);
+            //첫 페이지나 마지막 페이지라서 count가 필요 없으면 기다리지 않는다
+            return PageableExecutionUtils.getPage(rows, pageable, () -> await(count, deadline, failure));
+        } finally {
+            //시간이 초과되었거나 count가 필요 없으면 나머지도 취소한다 (이미 끝났다면 아무 일도 하지 않음)
+            content.cancel(true);
+            count.cancel(true);
+        }
+    }
+
+    private static <V> Callable<V> failFast(CompletableFuture<Void> failure, Supplier<V> query) {
+        return SqlStatementCounter.propagate(() -> {
+            try {
+                return query.get();
+            } catch (RuntimeException | Error e) {
+                failure.completeExceptionally(e);
+                throw e;
+            }
+        });
+    }
+
+    private <V> V await(Future<V> future, long deadline, CompletableFuture<Void> failure) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("페이지 조회가 " + timeout + " 안에 끝나지 않았습니다", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("페이지 조회 중 인터럽트되었습니다", e);
+        } catch (CancellationException e) {
+            //다른 쿼리가 실패해서 취소된 경우 그 실패를 그대로 던진다
+            throw rethrow(failure.handle((ignored, cause) -> cause).join());
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
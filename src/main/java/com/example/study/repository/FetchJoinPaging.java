@@ -0,0 +1,44 @@
+package com.example.study.repository;
+
+import com.querydsl.jpa.JPQLQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+//컬렉션 fetch join과 페이징을 같이 쓰면 Hibernate가 전체 row를 읽어 메모리에서 페이징한다 (HHH90003004)
+//1단계에서 루트 id만 SQL로 페이징하고, 2단계에서 그 id들에 대해서만 fetch join 한다
+//설정의 fail_on_pagination_over_collection_fetch로 메모리 페이징은 아예 예외가 나도록 막아 두었다
+public final class FetchJoinPaging {
+
+    private FetchJoinPaging() {
+    }
+
+    //ids: 조건과 정렬이 들어간 루트 id 쿼리 (offset/limit은 여기서 건다)
+    //fetchJoin: id 목록을 받아 컬렉션을 fetch join 하는 쿼리 - offset/limit을 걸면 안 된다
+    public static <T> Page<T> page(JPQLQuery<Long> ids, Function<List<Long>, JPQLQuery<T>> fetchJoin,
+                                   Function<T, Long> idOf, Pageable pageable, LongSupplier count) {
+        List<Long> pageIds = ids
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        if (pageIds.isEmpty()) {
+            return PageableExecutionUtils.getPage(List.of(), pageable, count);
+        }
+
+        //IN 쿼리 결과는 순서가 보장되지 않으므로 1단계의 id 순서로 다시 맞춘다 (그 사이 삭제된 id는 빠진다)
+        Map<Long, T> byId = fetchJoin.apply(pageIds).fetch().stream()
+                .collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+        List<T> content = pageIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return PageableExecutionUtils.getPage(content, pageable, count);
+    }
+}
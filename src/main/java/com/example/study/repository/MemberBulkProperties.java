@@ -0,0 +1,12 @@
+package com.example.study.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.member.bulk")
+public class MemberBulkProperties {
+    //문장/트랜잭션당 최대 row 수 (1 ~ MemberJpaRepository.IN_CHUNK_SIZE)
+    private int chunkSize = 1000;
+}
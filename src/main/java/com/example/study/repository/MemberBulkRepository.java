@@ -0,0 +1,217 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+//조건에 맞는 회원을 id 순서로 chunkSize개씩 끊어 벌크 update/delete 한다
+//문장 하나와 트랜잭션 하나가 건드리는 row 수를 제한해 락 유지 시간과 undo 크기를 줄인다
+//호출한 쪽에 트랜잭션이 있으면 청크들은 그 트랜잭션에 참여한다 (청크마다 커밋되지 않는다)
+//벌크 연산은 영속성 컨텍스트를 거치지 않으므로 청크마다 영향받은 관리 중인 엔티티를 다시 읽거나(update) 분리한다(delete)
+//id를 고른 뒤 문장을 실행하기 전에 다른 트랜잭션이 회원을 바꿀 수 있으므로 문장에도 조건을 다시 건다
+//벌크 문장은 join을 쓸 수 없어 팀 이름 조건은 team.id 서브쿼리로 표현한다
+@Repository
+public class MemberBulkRepository {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<BulkWriteListener> listeners;
+    private final int chunkSize;
+
+    public MemberBulkRepository(EntityManager em, PlatformTransactionManager transactionManager,
+                                ObjectProvider<BulkWriteListener> listeners,
+                                MemberBulkProperties properties) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.listeners = listeners;
+        this.chunkSize = checkChunkSize(properties.getChunkSize());
+    }
+
+    public long incrementAge(MemberSearchCondition condition, int delta) {
+        return incrementAge(condition, delta, chunkSize);
+    }
+
+    long incrementAge(MemberSearchCondition condition, int delta, int chunkSize) {
+        return execute(condition(condition), checkChunkSize(chunkSize), false, null,
+                chunk -> queryFactory
+                        .update(member)
+                        .set(member.age, member.age.add(delta))
+                        .where(chunk)
+                        .execute());
+    }
+
+    //fromTeamId 팀의 회원 전체를 toTeamId 팀으로 옮긴다
+    public long changeTeam(Long fromTeamId, Long toTeamId) {
+        return changeTeam(fromTeamId, toTeamId, chunkSize);
+    }
+
+    long changeTeam(Long fromTeamId, Long toTeamId, int chunkSize) {
+        if (fromTeamId == null || toTeamId == null
+                || transactionTemplate.execute(status -> em.find(Team.class, toTeamId)) == null) {
+            throw new IllegalArgumentException("옮길 팀이 없습니다: " + fromTeamId + " -> " + toTeamId);
+        }
+        return execute(member.team.id.eq(fromTeamId), checkChunkSize(chunkSize), false, toTeamId,
+                chunk -> queryFactory
+                        .update(member)
+                        .set(member.team, em.getReference(Team.class, toTeamId))
+                        .where(chunk)
+                        .execute());
+    }
+
+    //조건이 하나도 없으면 전체 삭제가 되므로 막는다
+    public long deleteBy(MemberSearchCondition condition) {
+        return deleteBy(condition, chunkSize);
+    }
+
+    long deleteBy(MemberSearchCondition condition, int chunkSize) {
+        BooleanBuilder where = condition(condition);
+        if (!where.hasValue()) {
+            throw new IllegalArgumentException("삭제 조건이 없습니다");
+        }
+        return execute(where, checkChunkSize(chunkSize), true, null,
+                chunk -> queryFactory
+                        .delete(member)
+                        .where(chunk)
+                        .execute());
+    }
+
+    //키셋(id > 마지막 id)으로 다음 청크의 id를 고르고, 그 id들 중 아직 where에 맞는 회원에만 문장을 실행한다
+    //statement는 "청크 id IN 목록 and where" 조건을 받는다
+    //targetTeamId: 회원이 새로 들어가는 팀 - 로딩된 members 컬렉션을 다시 읽어야 한다
+    private long execute(Predicate where, int chunkSize, boolean delete, Long targetTeamId,
+                         ToLongFunction<Predicate> statement) {
+        long affected = 0;
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .where(where, after == null ? null : member.id.gt(after))
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                if (ids.isEmpty()) {
+                    return new Chunk(0, 0, after);
+                }
+                long count = statement.applyAsLong(new BooleanBuilder(member.id.in(ids)).and(where));
+                syncPersistenceContext(ids, delete, targetTeamId);
+                notifyAfterCompletion();
+                return new Chunk(ids.size(), count, ids.get(ids.size() - 1));
+            });
+            affected += chunk.affected();
+            lastId = chunk.lastId();
+            if (chunk.selected() < chunkSize) {
+                return affected;
+            }
+        }
+    }
+
+    //관리 중인 엔티티만 본다 - 영속성 컨텍스트가 비어 있으면(청크마다 새 트랜잭션) 아무것도 하지 않는다
+    //update된 회원은 refresh(회원당 select 1번), 삭제된 회원은 detach
+    //고른 id 중 조건이 바뀌어 삭제되지 않은 회원은 남아 있으므로, 관리 중인 회원이 있으면 실제로 지워졌는지 확인한다
+    //회원이 빠지거나 들어온 팀의 로딩된 members 컬렉션은 팀을 refresh 해서 다시 읽게 한다
+    private void syncPersistenceContext(List<Long> ids, boolean delete, Long targetTeamId) {
+        Set<Long> affectedIds = new HashSet<>(ids);
+        List<Member> members = new ArrayList<>();
+        List<Team> teams = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : em.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member managed && affectedIds.contains(managed.getId())) {
+                members.add(managed);
+            } else if (entry.getKey() instanceof Team managed && Hibernate.isInitialized(managed.getMembers())) {
+                teams.add(managed);
+            }
+        }
+        if (delete || targetTeamId != null) {
+            for (Team managed : teams) {
+                if (managed.getId().equals(targetTeamId)
+                        || managed.getMembers().stream().anyMatch(m -> affectedIds.contains(m.getId()))) {
+                    em.refresh(managed);
+                }
+            }
+        }
+        Set<Long> remaining = delete && !members.isEmpty()
+                ? new HashSet<>(queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .where(member.id.in(members.stream().map(Member::getId).toList()))
+                        .fetch())
+                : Set.of();
+        for (Member managed : members) {
+            if (!delete || remaining.contains(managed.getId())) {
+                em.refresh(managed);
+            } else {
+                em.detach(managed);
+            }
+        }
+    }
+
+    private void notifyAfterCompletion() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                listeners.orderedStream().forEach(BulkWriteListener::onBulkWrite);
+            }
+        });
+    }
+
+    private static BooleanBuilder condition(MemberSearchCondition condition) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (hasText(condition.getUsername())) {
+            builder.and(member.username.eq(condition.getUsername()));
+        }
+        if (hasText(condition.getTeamName())) {
+            builder.and(member.team.id.in(JPAExpressions
+                    .select(team.id)
+                    .from(team)
+                    .where(team.name.eq(condition.getTeamName()))));
+        }
+        if (condition.getAgeGoe() != null) {
+            builder.and(member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            builder.and(member.age.loe(condition.getAgeLoe()));
+        }
+        return builder;
+    }
+
+    //청크 id 목록이 그대로 IN 파라미터가 되므로 IN_CHUNK_SIZE를 넘지 않게 한다
+    private static int checkChunkSize(int chunkSize) {
+        if (chunkSize < 1 || chunkSize > MemberJpaRepository.IN_CHUNK_SIZE) {
+            throw new IllegalArgumentException(
+                    "chunkSize는 1 ~ " + MemberJpaRepository.IN_CHUNK_SIZE + " 이어야 합니다: " + chunkSize);
+        }
+        return chunkSize;
+    }
+
+    private record Chunk(int selected, long affected, Long lastId) {
+    }
+}
@@ -1,33 +1,87 @@
 package com.example.study.repository;
 
+import com.example.study.dto.CursorPage;
+import com.example.study.dto.InvalidSearchRequestException;
+import com.example.study.dto.MemberCursor;
 import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.MemberRankDto;
+import com.example.study.dto.MemberSortKey;
+import com.example.study.dto.MemberTeamAvgDto;
 import com.example.study.dto.MemberTeamDto;
+import com.example.study.dto.QMemberRankDto;
 import com.example.study.dto.QMemberTeamDto;
 import com.example.study.entity.Member;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.example.study.entity.QMember.member;
 import static com.example.study.entity.QTeam.team;
 import static org.springframework.util.StringUtils.hasText;
 import static org.springframework.util.StringUtils.isEmpty;
 
+//조회는 읽기 전용 트랜잭션에서 실행한다: 스냅샷(변경 감지용 사본)을 만들지 않고 FlushMode.MANUAL로 flush를 생략한다
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
+    //IN 목록 최대 크기 - in_clause_parameter_padding으로 2의 거듭제곱(1024)까지 채워져 쿼리 계획 캐시 항목 수가 제한된다
+    static final int IN_CHUNK_SIZE = 1000;
+    //키셋 페이지 최대 크기 - Pageable의 기본 max-page-size(2000)처럼 더 크게 요청하면 잘라낸다
+    static final int MAX_CURSOR_PAGE_SIZE = 2000;
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private final Param<String> usernameParam = new Param<>(String.class, "username");
+    private final Param<String> teamNameParam = new Param<>(String.class, "teamName");
+    private final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+    private final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final QueryShapeCache queryShapeCache;
+    private final MemberSearchCache memberSearchCache;
+    private final ConcurrentPageQuery concurrentPageQuery;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, QueryShapeCache queryShapeCache,
+                               MemberSearchCache memberSearchCache, ConcurrentPageQuery concurrentPageQuery) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.queryShapeCache = queryShapeCache;
+        this.memberSearchCache = memberSearchCache;
+        this.concurrentPageQuery = concurrentPageQuery;
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -37,73 +91,353 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    //id 목록을 한 번에 조회한다 - 영속성 컨텍스트에 이미 있는 회원은 다시 읽지 않고, 나머지는 IN_CHUNK_SIZE개씩 나눠 조회한다
+    //결과는 요청한 id 순서(중복 제거)이며 없는 id는 빠진다
+    public List<Member> findAllById(Collection<Long> ids) {
+        List<Long> distinctIds = distinctIds(ids);
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+        return em.unwrap(Session.class)
+                .byMultipleIds(Member.class)
+                .enableSessionCheck(true)
+                .withBatchSize(IN_CHUNK_SIZE)
+                .multiLoad(distinctIds)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    //findAllById의 DTO 버전 - 엔티티를 영속성 컨텍스트에 올리지 않고 member.id IN 쿼리를 IN_CHUNK_SIZE개씩 실행한다
+    public List<MemberTeamDto> findAllDtoById(Collection<Long> ids) {
+        List<Long> distinctIds = distinctIds(ids);
+        Map<Long, MemberTeamDto> byId = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + IN_CHUNK_SIZE, distinctIds.size()));
+            for (MemberTeamDto dto : queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(chunk))
+                    .fetch()) {
+                byId.put(dto.getMemberId(), dto);
+            }
+        }
+        return distinctIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static List<Long> distinctIds(Collection<Long> ids) {
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
     public List<Member> findAll(){
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return readOnly(em.createQuery("select m from Member m", Member.class)).getResultList();
     }
 
     public List<Member> findByUsername(String username){
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        return readOnly(em.createQuery("select m from Member m where m.username = :username", Member.class))
                 .setParameter("username", username)
                 .getResultList();
     }
 
     public List<Member> findAll_Querydsl() {
-        return queryFactory
-                .selectFrom(member).fetch();
+        return readOnly(queryFactory
+                .selectFrom(member)).fetch();
     }
 
     public List<Member> findByUsername_Querydsl(String username) {
-        return queryFactory
+        return readOnly(queryFactory
                 .selectFrom(member)
-                .where(member.username.eq(username))
+                .where(member.username.eq(username)))
                 .fetch();
     }
 
+    //이 리포지토리가 시작한 읽기 전용 트랜잭션일 때만 쿼리 힌트를 건다
+    //호출한 쪽의 쓰기 트랜잭션에 참여한 경우 엔티티를 읽기 전용으로 만들면 그쪽의 변경이 flush 되지 않는다
+    private <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            query.setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+
+    private <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            query.setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
-        BooleanBuilder builder = new BooleanBuilder();
-        if(hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+        int shape = shape(hasText(condition.getUsername()), hasText(condition.getTeamName()),
+                condition.getAgeGoe() != null, condition.getAgeLoe() != null);
+
+        return queryShapeCache.fetch("searchByBuilder", shape, () -> {
+            BooleanBuilder builder = new BooleanBuilder();
+            if((shape & USERNAME) != 0) {
+                builder.and(member.username.eq(usernameParam));
+            }
+            if((shape & TEAM_NAME) != 0) {
+                builder.and(team.name.eq(teamNameParam));
+            }
+            if((shape & AGE_GOE) != 0) {
+                builder.and(member.age.goe(ageGoeParam));
+            }
+            if((shape & AGE_LOE) != 0) {
+                builder.and(member.age.loe(ageLoeParam));
+            }
+
+            return joinTeam(new JPAQuery<Void>()
+                    .select(new QMemberTeamDto(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name))
+                    .from(member), (shape & TEAM_NAME) != 0)
+                    .where(builder);
+        }, params(condition, shape));
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(condition, Sort.unsorted());
+    }
+
+    //sort는 MemberSort의 허용 목록(id, age, username, teamName)만 받는다
+    public List<MemberTeamDto> search(MemberSearchCondition condition, Sort sort) {
+        return memberSearchCache.get(condition, sort, () -> searchWithoutCache(condition, sort));
+    }
+
+    private List<MemberTeamDto> searchWithoutCache(MemberSearchCondition condition, Sort sort) {
+        int shape = shape(!isEmpty(condition.getUsername()), !isEmpty(condition.getTeamName()),
+                condition.getAgeGoe() != null, condition.getAgeLoe() != null);
+        //정렬이 없으면 기존처럼 order by 없이 조회한다
+        OrderSpecifier<?>[] orderBy = sort.isSorted() ? MemberSort.orderBy(sort) : new OrderSpecifier<?>[0];
+        String name = sort.isSorted() ? "search[" + MemberSort.key(orderBy) + "]" : "search";
+
+        return queryShapeCache.fetch(name, shape, () -> joinTeam(new JPAQuery<Void>()
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member), (shape & TEAM_NAME) != 0)
+                .where((shape & USERNAME) != 0 ? member.username.eq(usernameParam) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(teamNameParam) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(ageGoeParam) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(ageLoeParam) : null)
+                .orderBy(orderBy),
+                params(condition, shape));
+    }
+
+    //어떤 조건이 채워졌는지를 비트로 표현한 쿼리 모양 (최대 16가지)
+    private static int shape(boolean username, boolean teamName, boolean ageGoe, boolean ageLoe) {
+        return (username ? USERNAME : 0) | (teamName ? TEAM_NAME : 0)
+                | (ageGoe ? AGE_GOE : 0) | (ageLoe ? AGE_LOE : 0);
+    }
+
+    private Map<ParamExpression<?>, Object> params(MemberSearchCondition condition, int shape) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>(4);
+        if ((shape & USERNAME) != 0) {
+            params.put(usernameParam, condition.getUsername());
         }
-        if(hasText(condition.getTeamName())) {
-            builder.and(team.name.eq(condition.getTeamName()));
+        if ((shape & TEAM_NAME) != 0) {
+            params.put(teamNameParam, condition.getTeamName());
         }
-        if(condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeGoe()));
+        if ((shape & AGE_GOE) != 0) {
+            params.put(ageGoeParam, condition.getAgeGoe());
         }
-        if(condition.getAgeLoe() != null) {
-            builder.and(member.age.loe(condition.getAgeLoe()));
+        if ((shape & AGE_LOE) != 0) {
+            params.put(ageLoeParam, condition.getAgeLoe());
         }
+        return params;
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = searchPageContent(condition, pageable);
 
-        return queryFactory
+        //첫 페이지나 마지막 페이지면 count 쿼리를 생략한다
+        return PageableExecutionUtils.getPage(content, pageable, countQuery(condition)::fetchOne);
+    }
+
+    //content 쿼리와 count 쿼리를 각자의 읽기 전용 트랜잭션에서 동시에 실행해 지연 시간을 합이 아닌 최댓값으로 줄인다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<MemberTeamDto> searchPageConcurrently(MemberSearchCondition condition, Pageable pageable) {
+        return concurrentPageQuery.fetchPage(pageable,
+                () -> searchPageContent(condition, pageable),
+                () -> countQuery(condition).fetchOne());
+    }
+
+    private List<MemberTeamDto> searchPageContent(MemberSearchCondition condition, Pageable pageable) {
+        return joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
+                .from(member), !isEmpty(condition.getTeamName()))
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(MemberSort.orderBy(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
                 .fetch();
     }
 
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+    //count 쿼리는 order by 없이, 팀 이름 조건이 있을 때만 team과 inner join
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.count())
+                .from(member)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+        if (!isEmpty(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+        return query;
+    }
+
+    //팀 이름 조건이 있으면 팀이 없는 회원은 어차피 걸러지므로 inner join으로 바꾼다
+    //outer join이면 조인 순서가 member 먼저로 고정되어 DB가 team.name 인덱스에서 시작할 수 없다
+    private static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, boolean teamName) {
+        return teamName ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
+    //전체 결과를 List로 모으지 않고 forward-only 커서로 한 건씩 consumer에 넘긴다
+    public void searchStream(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize는 1 이상이어야 합니다: " + fetchSize);
+        }
+        try (Stream<MemberTeamDto> stream = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), !isEmpty(condition.getTeamName()))
                 .where(usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe()))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            //DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않는다
+            stream.forEach(consumer);
+        }
+    }
+
+    //팀 안에서 나이 순위 - 회원마다 서브쿼리를 돌리지 않고 rank() 윈도 함수로 한 번에 계산한다
+    public List<MemberRankDto> findRankByAgeWithinTeam() {
+        NumberExpression<Long> rank = Expressions.numberTemplate(Long.class,
+                "rank() over (partition by {0} order by {1} desc)", team.id, member.age);
+        return readOnly(queryFactory
+                .select(new QMemberRankDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name,
+                        rank))
+                .from(member)
+                .join(member.team, team)
+                .orderBy(team.id.asc(), member.age.desc(), member.id.asc()))
                 .fetch();
     }
 
+    //팀 평균 나이보다 나이가 많은 회원 - 팀 평균을 avg() over로 같이 구하고 바깥에서 거른다
+    //윈도 함수 결과는 where에 바로 쓸 수 없고 Querydsl은 from 절 서브쿼리를 만들지 못해 HQL로 작성한다
+    public List<MemberTeamAvgDto> findOlderThanTeamAverage() {
+        return readOnly(em.createQuery("""
+                        select new com.example.study.dto.MemberTeamAvgDto(x.memberId, x.username, x.age, x.teamId, x.teamName, x.teamAvg)
+                        from (select m.id as memberId, m.username as username, m.age as age,
+                                     t.id as teamId, t.name as teamName,
+                                     avg(m.age) over (partition by t.id) as teamAvg
+                              from Member m join m.team t) x
+                        where x.age > x.teamAvg
+                        order by x.teamId, x.age desc, x.memberId""", MemberTeamAvgDto.class))
+                .getResultList();
+    }
+
+    //offset 대신 마지막으로 읽은 (정렬 키, member_id) 이후부터 읽는 키셋 페이징
+    public CursorPage<MemberTeamDto> searchByCursor(MemberSearchCondition condition, String cursor,
+                                                    MemberSortKey sortKey, int size) {
+        if (size < 1) {
+            throw new InvalidSearchRequestException("size는 1 이상이어야 합니다: " + size);
+        }
+        int limit = Math.min(size, MAX_CURSOR_PAGE_SIZE);
+        MemberCursor after = cursor == null ? null : MemberCursor.decode(cursor);
+        MemberSortKey key = after != null ? after.getSortKey() : sortKey == null ? MemberSortKey.ID : sortKey;
+
+        List<MemberTeamDto> content = joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member), !isEmpty(condition.getTeamName()))
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        after(after))
+                .orderBy(keysetOrder(key))
+                .limit(limit + 1)
+                .fetch();
+
+        if (content.size() <= limit) {
+            return new CursorPage<>(content, null);
+        }
+        List<MemberTeamDto> page = content.subList(0, limit);
+        return new CursorPage<>(page, MemberCursor.after(key, page.get(limit - 1)).encode());
+    }
+
+    private OrderSpecifier<?>[] keysetOrder(MemberSortKey key) {
+        return switch (key) {
+            case ID -> new OrderSpecifier<?>[]{member.id.asc()};
+            case AGE -> new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+            case USERNAME -> new OrderSpecifier<?>[]{member.username.asc().nullsFirst(), member.id.asc()};
+        };
+    }
+
+    private BooleanExpression after(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        Long lastId = cursor.getLastMemberId();
+        return switch (cursor.getSortKey()) {
+            case ID -> member.id.gt(lastId);
+            case AGE -> member.age.gt(cursor.getLastAge())
+                    .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(lastId)));
+            //username은 null이 먼저 정렬된다
+            case USERNAME -> cursor.getLastUsername() == null
+                    ? member.username.isNotNull().or(member.username.isNull().and(member.id.gt(lastId)))
+                    : member.username.gt(cursor.getLastUsername())
+                    .or(member.username.eq(cursor.getLastUsername()).and(member.id.gt(lastId)));
+        };
+    }
+
     private BooleanExpression usernameEq(String username) {
         return isEmpty(username) ? null : member.username.eq(username);
     }
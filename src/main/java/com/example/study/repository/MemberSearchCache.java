@@ -0,0 +1,98 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.MemberTeamDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.springframework.util.StringUtils.isEmpty;
+
+//자주 반복되는 검색 조건의 결과를 크기/TTL 제한이 있는 로컬 캐시에 보관한다
+//member, team에 쓰기가 일어나면 전체를 비운다 (TableWriteInspector)
+@Component
+public class MemberSearchCache implements TableWriteListener {
+    private final boolean enabled;
+    private final Cache<Key, List<MemberTeamDto>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchCache(MemberSearchCacheProperties properties) {
+        if (properties.getMaximumSize() < 0 || properties.getTtl().isNegative()) {
+            throw new IllegalArgumentException("maximumSize, ttl은 0 이상이어야 합니다");
+        }
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> loader) {
+        return get(condition, Sort.unsorted(), loader);
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition, Sort sort, Supplier<List<MemberTeamDto>> loader) {
+        //쓰기 트랜잭션 안에서는 아직 커밋되지 않은 자신의 변경을 봐야 하므로 캐시를 쓰지 않는다
+        if (!enabled || inReadWriteTransaction()) {
+            return loader.get();
+        }
+        Key key = Key.of(condition, sort);
+        List<MemberTeamDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        List<MemberTeamDto> result = List.copyOf(loader.get());
+        //조회하는 동안 쓰기가 있었다면 이전 값일 수 있으므로 저장하지 않는다
+        if (generation.get() == loadedAt) {
+            cache.put(key, result);
+            if (generation.get() != loadedAt) {
+                cache.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onTableWrite(String table) {
+        invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    //search와 같은 기준으로 빈 문자열 조건은 없는 조건으로 본다
+    private record Key(String username, String teamName, Integer ageGoe, Integer ageLoe, Sort sort) {
+        static Key of(MemberSearchCondition condition, Sort sort) {
+            return new Key(
+                    isEmpty(condition.getUsername()) ? null : condition.getUsername(),
+                    isEmpty(condition.getTeamName()) ? null : condition.getTeamName(),
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe(),
+                    sort);
+        }
+    }
+}
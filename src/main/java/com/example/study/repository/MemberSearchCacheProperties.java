@@ -0,0 +1,17 @@
+package com.example.study.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.member.search-cache")
+public class MemberSearchCacheProperties {
+    private boolean enabled = true;
+    //보관하는 검색 조건(키) 수의 최댓값
+    private long maximumSize = 1000;
+    //쓰기 이벤트를 놓쳐도 이 시간이 지나면 다시 조회한다
+    private Duration ttl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,77 @@
+package com.example.study.repository;
+
+import com.example.study.dto.InvalidSearchRequestException;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//회원 검색에서 허용하는 정렬 - 인덱스가 있는 컬럼만 받고 Querydsl OrderSpecifier로 바꾼다
+//정렬 값이 같은 행의 순서가 호출마다 달라지지 않도록 마지막에 member.id를 붙인다
+final class MemberSort {
+    private static final String ID = "id";
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = Map.of(
+            ID, member.id,
+            "age", member.age,
+            "username", member.username,
+            "teamName", team.name);
+
+    private MemberSort() {
+    }
+
+    //같은 속성을 두 번 쓰거나 ignoreCase를 요청하면 거부한다 - 정렬 조합(= QueryShapeCache 항목 수)이 허용 속성 수로 제한된다
+    static OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        Set<String> properties = new HashSet<>();
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = path(order.getProperty());
+            if (!properties.add(order.getProperty())) {
+                throw new InvalidSearchRequestException("같은 속성으로 두 번 정렬할 수 없습니다: " + order.getProperty());
+            }
+            if (order.isIgnoreCase()) {
+                throw new InvalidSearchRequestException("ignoreCase 정렬은 지원하지 않습니다: " + order.getProperty());
+            }
+            //id 뒤의 정렬은 의미가 없다 (검증만 하고 버린다)
+            if (byId) {
+                continue;
+            }
+            OrderSpecifier<?> specifier = order.isAscending() ? path.asc() : path.desc();
+            orders.add(switch (order.getNullHandling()) {
+                case NULLS_FIRST -> specifier.nullsFirst();
+                case NULLS_LAST -> specifier.nullsLast();
+                case NATIVE -> specifier;
+            });
+            byId = ID.equals(order.getProperty());
+        }
+        if (!byId) {
+            orders.add(member.id.asc());
+        }
+        return orders.toArray(OrderSpecifier<?>[]::new);
+    }
+
+    //정렬마다 JPQL이 달라지므로 QueryShapeCache 키에 붙일 문자열 - orderBy가 돌려준 정규화된 정렬로 만든다
+    static String key(OrderSpecifier<?>[] orders) {
+        return Arrays.stream(orders)
+                .map(order -> order.getTarget() + ":" + order.getOrder() + ":" + order.getNullHandling())
+                .collect(Collectors.joining(","));
+    }
+
+    private static ComparableExpressionBase<?> path(String property) {
+        ComparableExpressionBase<?> path = SORTABLE.get(property);
+        if (path == null) {
+            throw new InvalidSearchRequestException("정렬할 수 없는 속성입니다: " + property + " (가능: " + SORTABLE.keySet().stream().sorted().toList() + ")");
+        }
+        return path;
+    }
+}
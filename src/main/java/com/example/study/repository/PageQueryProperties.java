@@ -0,0 +1,16 @@
+package com.example.study.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.member.page-query")
+public class PageQueryProperties {
+    //content, count 쿼리를 합쳐 기다리는 최대 시간 (트랜잭션 타임아웃으로도 쓴다)
+    private Duration timeout = Duration.ofSeconds(5);
+    //Java 21 미만에서 가상 스레드 대신 쓰는 스레드 풀 크기
+    private int platformThreads = 16;
+}
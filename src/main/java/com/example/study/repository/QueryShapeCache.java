@@ -0,0 +1,92 @@
+package com.example.study.repository;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//동적 쿼리를 조건 조합(shape)별로 한 번만 직렬화해 두고, 호출마다 파라미터만 바인딩해서 실행한다
+//JPQL 문자열이 shape마다 항상 같으므로 Hibernate의 쿼리 해석 캐시도 그대로 재사용된다
+@Component
+public class QueryShapeCache {
+    private final EntityManager em;
+    private final ConcurrentMap<Key, CachedQuery> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public QueryShapeCache(EntityManager em) {
+        this.em = em;
+    }
+
+    //definition은 캐시에 없을 때만 호출되며, 값 대신 Param으로 조건을 표현한 쿼리를 돌려줘야 한다
+    public <T> List<T> fetch(String name, int shape, Supplier<JPQLQuery<T>> definition,
+                             Map<ParamExpression<?>, Object> params) {
+        CachedQuery cached = cache.get(new Key(name, shape));
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            cached = cache.computeIfAbsent(new Key(name, shape), key -> serialize(definition.get()));
+        }
+        return cached.fetch(em, params);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private CachedQuery serialize(JPQLQuery<?> query) {
+        QueryMetadata metadata = query.getMetadata();
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, false, null);
+        return new CachedQuery(serializer.toString(), List.copyOf(serializer.getConstants()), metadata.getProjection());
+    }
+
+    private record Key(String name, int shape) {
+    }
+
+    private record CachedQuery(String jpql, List<Object> constants, Expression<?> projection) {
+
+        @SuppressWarnings("unchecked")
+        <T> List<T> fetch(EntityManager em, Map<ParamExpression<?>, Object> params) {
+            Query query = em.createQuery(jpql);
+            JPAUtil.setConstants(query, constants, params);
+            //DTO 조회라 스냅샷은 없지만, 읽기 전용 트랜잭션에서는 조회 전 자동 flush도 필요 없다
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                query.setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+            }
+            List<Object> rows = query.getResultList();
+            if (!(projection instanceof FactoryExpression<?> factory)) {
+                return (List<T>) rows;
+            }
+            return rows.stream()
+                    .map(row -> (T) factory.newInstance(row instanceof Object[] args ? args : new Object[]{row}))
+                    .toList();
+        }
+    }
+}
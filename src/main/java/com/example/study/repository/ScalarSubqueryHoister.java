@@ -0,0 +1,218 @@
+package com.example.study.repository;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+//select 절의 스칼라 서브쿼리가 바깥 쿼리를 참조하지 않으면(uncorrelated) 모든 row에서 같은 값이다
+//그런 서브쿼리는 먼저 한 번만 실행해 Expressions.constant로 바꾸고, 나머지 컬럼만 SQL로 조회한 뒤 row마다 상수를 채워 넣는다
+//상수는 SQL 파라미터로 보내지 않는다 - select 절의 바인딩 파라미터는 Hibernate가 타입을 추론하지 못할 수 있다
+@Component
+public class ScalarSubqueryHoister implements MeterBinder {
+    private final EntityManager em;
+    private final LongAdder rewrites = new LongAdder();
+
+    public ScalarSubqueryHoister(EntityManager em) {
+        this.em = em;
+    }
+
+    //Tuple, Projections.constructor/bean 같은 FactoryExpression 또는 단일 컬럼 projection을 받는다
+    //결과 타입과 Tuple.get(원래 서브쿼리)는 그대로 동작한다
+    @SuppressWarnings("unchecked")
+    public <T> List<T> fetch(JPAQuery<T> query) {
+        Expression<?> projection = query.getMetadata().getProjection();
+        List<Expression<?>> args = projection instanceof FactoryExpression<?> factory
+                ? factory.getArgs() : List.of(projection);
+
+        //hoisted[i]: i번째 컬럼이 상수로 바뀌었는지 - 원래 projection에 있던 상수와 구분한다
+        List<Expression<?>> rewritten = new ArrayList<>(args.size());
+        List<Expression<?>> selected = new ArrayList<>(args.size());
+        boolean[] hoisted = new boolean[args.size()];
+        for (int i = 0; i < args.size(); i++) {
+            Expression<?> arg = args.get(i);
+            if (arg instanceof SubQueryExpression<?> subQuery && isUncorrelated(subQuery.getMetadata())) {
+                rewritten.add(hoist(subQuery, query.getMetadata()));
+                hoisted[i] = true;
+            } else {
+                rewritten.add(arg);
+                selected.add(arg);
+            }
+        }
+        //바꿀 서브쿼리가 없거나 남는 컬럼이 없으면(row 수를 알 수 없음) 원래 쿼리를 그대로 실행한다
+        if (selected.size() == args.size() || selected.isEmpty()) {
+            return query.fetch();
+        }
+        rewrites.add(args.size() - selected.size());
+
+        List<Tuple> rows = query.clone().select(selected.toArray(Expression[]::new)).fetch();
+        List<T> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Object[] values = new Object[rewritten.size()];
+            int column = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = hoisted[i]
+                        ? ((Constant<?>) rewritten.get(i)).getConstant()
+                        : row.get(column++, Object.class);
+            }
+            result.add(projection instanceof FactoryExpression<?> factory
+                    ? (T) factory.newInstance(values) : (T) values[0]);
+        }
+        return result;
+    }
+
+    //지금까지 상수로 바꾼 서브쿼리 수
+    public long getRewriteCount() {
+        return rewrites.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("query.scalar-subquery.hoisted", this, ScalarSubqueryHoister::getRewriteCount)
+                .register(registry);
+    }
+
+    //바깥 쿼리에 set(param, value)로 바인딩한 값은 서브쿼리에서도 쓰이므로 같이 넘긴다
+    private Expression<?> hoist(SubQueryExpression<?> subQuery, QueryMetadata outer) {
+        QueryMetadata metadata = subQuery.getMetadata().clone();
+        outer.getParams().forEach((param, bound) -> bind(metadata, param, bound));
+        Object value = new JPAQuery<>(em, metadata).fetchOne();
+        //결과가 없으면 null 상수 - Expressions.constant는 null을 받지 않는다
+        return value != null ? Expressions.constant(value) : NullConstant.INSTANCE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void bind(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+
+    //서브쿼리(와 그 안의 서브쿼리)가 참조하는 모든 경로의 루트가 서브쿼리 안에서 선언된 별칭이면 바깥과 무관하다
+    static boolean isUncorrelated(QueryMetadata metadata) {
+        return new RootScanner().freeRoots(metadata).isEmpty();
+    }
+
+    private enum NullConstant implements Constant<Object> {
+        INSTANCE;
+
+        @Override
+        public Object getConstant() {
+            return null;
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+
+        @Override
+        public Class<?> getType() {
+            return Object.class;
+        }
+    }
+
+    //서브쿼리 한 단계의 별칭만 본다 - 안쪽 서브쿼리는 새 RootScanner로 따로 보고, 거기서 선언되지 않은 루트만 이 단계의 참조로 더한다
+    //안쪽에서 바깥과 같은 별칭(from(member))을 다시 선언해도 이 단계의 member 참조가 가려지지 않는다
+    private static class RootScanner implements Visitor<Void, Void> {
+        private final Set<Path<?>> declared = new HashSet<>();
+        private final Set<Path<?>> referenced = new HashSet<>();
+
+        //이 단계에서 선언되지 않은 채 참조된 루트 (바깥 쿼리의 별칭)
+        Set<Path<?>> freeRoots(QueryMetadata metadata) {
+            for (JoinExpression join : metadata.getJoins()) {
+                Expression<?> target = join.getTarget();
+                //from(memberSub) / join(memberSub.team, teamSub) 에서 memberSub, teamSub가 선언된 별칭
+                if (target instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS) {
+                    alias.getArg(0).accept(this, null);
+                    declared.add(((Path<?>) alias.getArg(1)).getRoot());
+                } else if (target instanceof Path<?> path && path.getMetadata().isRoot()) {
+                    declared.add(path);
+                } else {
+                    target.accept(this, null);
+                }
+                accept(join.getCondition());
+            }
+            accept(metadata.getProjection());
+            accept(metadata.getWhere());
+            accept(metadata.getHaving());
+            metadata.getGroupBy().forEach(this::accept);
+            for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+                accept(order.getTarget());
+            }
+            referenced.removeAll(declared);
+            return referenced;
+        }
+
+        private void accept(Expression<?> expression) {
+            if (expression != null) {
+                expression.accept(this, null);
+            }
+        }
+
+        @Override
+        public Void visit(Constant<?> expr, Void context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Void context) {
+            expr.getArgs().forEach(this::accept);
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Void context) {
+            expr.getArgs().forEach(this::accept);
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Void context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Void context) {
+            referenced.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Void context) {
+            referenced.addAll(new RootScanner().freeRoots(expr.getMetadata()));
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Void context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression<?> expression) {
+                    accept(expression);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.study.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Hibernate가 실행하는 모든 SQL을 보고 member/team 쓰기를 감지한다
+//em.persist, 변경 감지(changeTeam 등), 벌크 update/delete 모두 여기를 지나간다
+@Component
+public class TableWriteInspector implements StatementInspector {
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from)\\s+(member|team)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final ObjectProvider<TableWriteListener> listeners;
+
+    public TableWriteInspector(ObjectProvider<TableWriteListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        char first = sql.isEmpty() ? ' ' : Character.toLowerCase(sql.charAt(0));
+        if (first != 'i' && first != 'u' && first != 'd') {
+            return sql;
+        }
+        Matcher matcher = WRITE.matcher(sql);
+        if (matcher.find()) {
+            String table = matcher.group(1).toLowerCase(Locale.ROOT);
+            notifyListeners(table);
+            notifyAfterCompletion(table);
+        }
+        return sql;
+    }
+
+    private void notifyListeners(String table) {
+        listeners.orderedStream().forEach(listener -> listener.onTableWrite(table));
+    }
+
+    //커밋 전에 다른 스레드가 이전 값을 다시 캐시에 올릴 수 있으므로 트랜잭션이 끝난 뒤 한 번 더 알린다
+    private void notifyAfterCompletion(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> tables = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (tables == null) {
+            Set<String> written = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, written);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableWriteInspector.this);
+                    written.forEach(TableWriteInspector.this::notifyListeners);
+                }
+            });
+            tables = written;
+        }
+        tables.add(table);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.study.repository;
+
+//member, team 테이블에 insert/update/delete 문이 실행될 때 알림을 받는다
+public interface TableWriteListener {
+
+    void onTableWrite(String table);
+}
@@ -0,0 +1,81 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberDto;
+import com.example.study.dto.QMemberDto;
+import com.example.study.dto.TeamMembersDto;
+import com.example.study.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+
+@Repository
+@Transactional(readOnly = true)
+public class TeamJpaRepository {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamJpaRepository(EntityManager em) {
+        this.em = em;
+        //Hibernate 6에서 HQLTemplates의 ScrollableResults 기반 iterate가 깨지므로 GroupBy transform을 위해 기본 템플릿 사용
+        this.queryFactory = new JPAQueryFactory(JPQLTemplates.DEFAULT, em);
+    }
+
+    //팀 페이지를 먼저 id로 자르고, 그 팀들의 회원을 IN 쿼리 한 번으로 가져와 메모리에서 묶는다
+    //팀 수와 상관없이 쿼리는 항상 2번
+    public List<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        if (teams.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> teamIds = teams.stream().map(tuple -> tuple.get(team.id)).toList();
+        Map<Long, List<MemberDto>> membersByTeamId = queryFactory
+                .from(member)
+                .where(member.team.id.in(teamIds))
+                .orderBy(member.id.asc())
+                .transform(groupBy(member.team.id).as(list(new QMemberDto(member.username, member.age))));
+
+        return teams.stream()
+                .map(tuple -> new TeamMembersDto(
+                        tuple.get(team.id),
+                        tuple.get(team.name),
+                        membersByTeamId.getOrDefault(tuple.get(team.id), List.of())))
+                .toList();
+    }
+
+    //members까지 초기화된 팀 엔티티 페이지 - 페이징은 팀 id에만 걸고 fetch join은 그 페이지의 팀에만 한다
+    public Page<Team> findTeamsFetchMembers(Pageable pageable) {
+        return FetchJoinPaging.page(
+                queryFactory
+                        .select(team.id)
+                        .from(team)
+                        .orderBy(team.id.asc()),
+                ids -> queryFactory
+                        .selectFrom(team)
+                        .leftJoin(team.members, member).fetchJoin()
+                        .where(team.id.in(ids))
+                        .orderBy(member.id.asc()),
+                Team::getId,
+                pageable,
+                queryFactory.select(team.count()).from(team)::fetchOne);
+    }
+}
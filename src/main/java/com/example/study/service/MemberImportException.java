@@ -0,0 +1,15 @@
+package com.example.study.service;
+
+import com.example.study.dto.MemberImportResult;
+import lombok.Getter;
+
+//적재 도중 실패 - result.resumeFrom까지는 이미 커밋되어 있다
+@Getter
+public class MemberImportException extends RuntimeException {
+    private final MemberImportResult result;
+
+    public MemberImportException(MemberImportResult result, Throwable cause) {
+        super(result.getError(), cause);
+        this.result = result;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.study.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.member.import")
+public class MemberImportProperties {
+    //flush/clear 단위 (hibernate.jdbc.batch_size와 맞춘다)
+    private int batchSize = 100;
+    //커밋 단위 - 실패하면 마지막으로 커밋된 청크 다음부터 다시 시작한다
+    private int chunkSize = 10_000;
+}
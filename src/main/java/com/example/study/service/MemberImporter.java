@@ -0,0 +1,225 @@
+package com.example.study.service;
+
+import com.example.study.dto.MemberImportResult;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.example.study.entity.QTeam.team;
+
+//CSV(username,age,teamName)를 한 줄씩 읽어 회원을 적재한다 - 파일 전체를 메모리에 올리지 않는다
+//batchSize마다 flush/clear 해서 JDBC 배치 insert로 내보내고, chunkSize마다 커밋한다
+//실패하면 그 청크만 롤백되고, 결과의 resumeFrom(커밋된 행 수)부터 다시 요청하면 이어서 적재한다
+@Slf4j
+@Component
+public class MemberImporter {
+    @PersistenceContext
+    EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requiresNew;
+    private final MemberImportProperties properties;
+
+    public MemberImporter(PlatformTransactionManager transactionManager, MemberImportProperties properties) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+    }
+
+    public MemberImportResult importCsv(Reader source, long resumeFrom) {
+        return importCsv(source, resumeFrom, properties);
+    }
+
+    //resumeFrom: 건너뛸 데이터 행 수 (헤더 제외) - 이전 실패 결과의 resumeFrom을 그대로 넘긴다
+    public MemberImportResult importCsv(Reader source, long resumeFrom, MemberImportProperties properties) {
+        if (properties.getBatchSize() < 1 || properties.getChunkSize() < 1 || resumeFrom < 0) {
+            throw new IllegalArgumentException("batchSize, chunkSize는 1 이상, resumeFrom은 0 이상이어야 합니다");
+        }
+        long start = System.nanoTime();
+        CsvRows rows = new CsvRows(source);
+        TeamIds teamIds = new TeamIds(transactionTemplate.execute(status -> loadTeamIds()));
+        long imported = 0;
+        try {
+            rows.skip(resumeFrom);
+            int committed;
+            do {
+                committed = transactionTemplate.execute(status -> persistChunk(rows, teamIds, properties));
+                imported += committed;
+            } while (committed == properties.getChunkSize());
+        } catch (RuntimeException e) {
+            //응답으로 나가는 error에는 직접 검사한 CSV 형식 오류만 담는다 - DB/드라이버 메시지(SQL, 제약 이름)는 로그에만 남긴다
+            String error = e instanceof CsvFormatException ? e.getMessage() : "행을 저장하지 못했습니다";
+            MemberImportResult result = result(start, imported, resumeFrom, teamIds,
+                    "line " + rows.lineNumber + ": " + error);
+            log.warn("member import failed at line {}, resume from {}", rows.lineNumber, result.getResumeFrom(), e);
+            throw new MemberImportException(result, e);
+        }
+
+        MemberImportResult result = result(start, imported, resumeFrom, teamIds, null);
+        log.info("imported {} members ({} new teams) in {} ms ({} rows/sec)",
+                imported, teamIds.created, result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private int persistChunk(CsvRows rows, TeamIds teamIds, MemberImportProperties properties) {
+        int count = 0;
+        String[] row;
+        while (count < properties.getChunkSize() && (row = rows.next()) != null) {
+            Member member = new Member(row[0], parseAge(row[1]));
+            //changeTeam은 Team.members 컬렉션까지 건드리므로 연관관계 주인 쪽만 설정한다
+            Long teamId = teamIds.resolve(row.length > 2 ? row[2] : "");
+            if (teamId != null) {
+                member.setTeam(em.getReference(Team.class, teamId));
+            }
+            em.persist(member);
+
+            if (++count % properties.getBatchSize() == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    //이름이 같은 팀이 여럿이면 id가 가장 작은 팀으로 붙인다
+    private Map<String, Long> loadTeamIds() {
+        Map<String, Long> ids = new HashMap<>();
+        for (Tuple tuple : new JPAQueryFactory(em).select(team.name, team.id).from(team).orderBy(team.id.asc()).fetch()) {
+            ids.putIfAbsent(tuple.get(team.name), tuple.get(team.id));
+        }
+        return ids;
+    }
+
+    private static int parseAge(String age) {
+        try {
+            return Integer.parseInt(age);
+        } catch (NumberFormatException e) {
+            throw new CsvFormatException("age가 숫자가 아닙니다: " + age);
+        }
+    }
+
+    private static MemberImportResult result(long start, long imported, long resumeFrom, TeamIds teamIds, String error) {
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        return new MemberImportResult(imported, resumeFrom + imported, teamIds.created,
+                elapsedNanos / 1_000_000, imported * 1_000_000_000L / elapsedNanos, error);
+    }
+
+    //파일 내용이 잘못됨 - 메시지를 그대로 클라이언트에 돌려준다
+    private static class CsvFormatException extends RuntimeException {
+
+        CsvFormatException(String message) {
+            super(message);
+        }
+    }
+
+    //팀 이름 -> id 로컬 캐시, 없는 팀은 만들어서 바로 커밋한다
+    //청크가 롤백되어도 캐시의 id가 유효하도록 회원 적재 트랜잭션과 분리한다
+    private class TeamIds {
+        private final Map<String, Long> ids;
+        private int created;
+
+        TeamIds(Map<String, Long> ids) {
+            this.ids = ids;
+        }
+
+        Long resolve(String name) {
+            if (name.isEmpty()) {
+                return null;
+            }
+            Long id = ids.get(name);
+            if (id == null) {
+                id = requiresNew.execute(status -> {
+                    Team newTeam = new Team(name);
+                    em.persist(newTeam);
+                    return newTeam.getId();
+                });
+                ids.put(name, id);
+                created++;
+            }
+            return id;
+        }
+    }
+
+    //헤더(대소문자와 쉼표 주변 공백을 무시하고 username,age,teamName과 같은 첫 줄), UTF-8 BOM, 빈 줄은 건너뛴다
+    //username1,20,teamA 처럼 헤더 없이 시작하는 파일의 첫 행은 데이터로 읽는다
+    //값 안의 쉼표나 따옴표 이스케이프는 지원하지 않는다
+    private static class CsvRows {
+        private static final String HEADER = "username,age,teamName";
+
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        CsvRows(Reader source) {
+            this.reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        }
+
+        void skip(long rows) {
+            for (long i = 0; i < rows; i++) {
+                if (nextLine() == null) {
+                    return;
+                }
+            }
+        }
+
+        String[] next() {
+            String line = nextLine();
+            if (line == null) {
+                return null;
+            }
+            String[] columns = line.split(",", -1);
+            if (columns.length < 2 || columns.length > 3) {
+                throw new CsvFormatException("username,age,teamName 형식이 아닙니다: " + line);
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columns[i].trim();
+            }
+            return columns;
+        }
+
+        private String nextLine() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                        line = line.substring(1);
+                    }
+                    if (line.isBlank() || lineNumber == 1 && isHeader(line)) {
+                        continue;
+                    }
+                    return line;
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static boolean isHeader(String line) {
+            return Arrays.stream(line.split(",", -1))
+                    .map(String::trim)
+                    .collect(Collectors.joining(","))
+                    .equalsIgnoreCase(HEADER);
+        }
+    }
+}
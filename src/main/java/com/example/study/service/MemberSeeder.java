@@ -0,0 +1,95 @@
+package com.example.study.service;
+
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//대량의 테스트 데이터를 JDBC 배치 insert로 넣는다
+//batchSize마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 하고, chunkSize마다 커밋한다
+@Slf4j
+@Component
+public class MemberSeeder {
+    @PersistenceContext
+    EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberSeeder(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public long seed(SeedProperties properties) {
+        if (properties.getTeamCount() < 1 || properties.getMinAge() > properties.getMaxAge()) {
+            throw new IllegalArgumentException("teamCount는 1 이상, minAge는 maxAge 이하여야 합니다");
+        }
+        if (properties.getBatchSize() < 1 || properties.getChunkSize() < 1) {
+            throw new IllegalArgumentException("batchSize, chunkSize는 1 이상이어야 합니다");
+        }
+        long start = System.nanoTime();
+        List<Long> teamIds = transactionTemplate.execute(status -> persistTeams(properties.getTeamCount()));
+
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed());
+        int memberCount = properties.getMemberCount();
+        for (int from = 0; from < memberCount; from += properties.getChunkSize()) {
+            int to = Math.min(from + properties.getChunkSize(), memberCount);
+            int chunkFrom = from;
+            transactionTemplate.executeWithoutResult(status ->
+                    persistMembers(properties, teamIds, random, chunkFrom, to));
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        long rowsPerSecond = memberCount * 1_000_000_000L / elapsedNanos;
+        log.info("seeded {} members in {} teams in {} ms ({} rows/sec)",
+                memberCount, teamIds.size(), elapsedNanos / 1_000_000, rowsPerSecond);
+        return rowsPerSecond;
+    }
+
+    private List<Long> persistTeams(int teamCount) {
+        List<Long> teamIds = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team(teamName(i, teamCount));
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        return teamIds;
+    }
+
+    private void persistMembers(SeedProperties properties, List<Long> teamIds, SplittableRandom random,
+                                int from, int to) {
+        for (int i = from; i < to; i++) {
+            Member member = new Member("member" + i, age(properties, random, i));
+            //changeTeam은 Team.members 컬렉션까지 건드리므로 연관관계 주인 쪽만 설정한다
+            member.setTeam(em.getReference(Team.class, teamIds.get(i % teamIds.size())));
+            em.persist(member);
+
+            if ((i - from + 1) % properties.getBatchSize() == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private static int age(SeedProperties properties, SplittableRandom random, int index) {
+        int min = properties.getMinAge();
+        int max = properties.getMaxAge();
+        return switch (properties.getAgeDistribution()) {
+            case SEQUENTIAL -> min + index % (max - min + 1);
+            case UNIFORM -> random.nextInt(min, max + 1);
+        };
+    }
+
+    //팀이 26개 이하면 teamA, teamB, ... 그 이상이면 team0, team1, ...
+    private static String teamName(int index, int teamCount) {
+        return teamCount <= 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+}
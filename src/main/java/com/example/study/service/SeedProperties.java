@@ -0,0 +1,27 @@
+package com.example.study.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.seed")
+public class SeedProperties {
+    private int memberCount = 100;
+    private int teamCount = 2;
+    private int minAge = 0;
+    private int maxAge = 99;
+    private AgeDistribution ageDistribution = AgeDistribution.SEQUENTIAL;
+    private long randomSeed = 42;
+    //flush/clear 단위 (hibernate.jdbc.batch_size와 맞춘다)
+    private int batchSize = 100;
+    //커밋 단위
+    private int chunkSize = 10_000;
+
+    public enum AgeDistribution {
+        //min, min+1, ..., max 를 순서대로 반복
+        SEQUENTIAL,
+        //min ~ max 균등 분포 (randomSeed로 재현 가능)
+        UNIFORM
+    }
+}
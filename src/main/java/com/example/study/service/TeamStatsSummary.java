@@ -0,0 +1,386 @@
+package com.example.study.service;
+
+import com.example.study.dto.TeamStatsDto;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.repository.BulkWriteListener;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//팀별 count/sum/avg/max/min(member.age)를 메모리에 유지해 조회 비용을 회원 수가 아닌 팀 수에 비례하게 한다
+//회원/팀의 insert, update(나이, 팀 변경), delete를 커밋된 뒤에만 반영하고 (Hibernate post-commit 이벤트)
+//이벤트를 거치지 않는 벌크 연산은 끝난 뒤 다음 조회 때 다시 계산하고, 그 밖에 어긋난 값은 주기적인 전체 재계산으로 맞춘다
+//post-commit 이벤트는 DB 커밋 뒤에 오므로, 그 사이에 조회한 전체 재계산은 이미 그 변경을 센다
+//그래서 flush 때(커밋 전) 변경을 pending으로 세어 두고, 이벤트가 오기 전에 끝난 재계산은 stale로 남겨 다음 조회 때 다시 계산한다
+@Slf4j
+@Component
+public class TeamStatsSummary implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener, BulkWriteListener {
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate readOnly;
+    private final Map<Long, TeamAges> teams = new HashMap<>();
+    //처음 조회 전이거나, 요약에 없는 팀에 대한 이벤트를 받으면 다음 조회 때 전체를 다시 계산한다
+    private boolean stale = true;
+    //이벤트를 받을 때마다 올린다 - 전체 재계산 조회 중에 들어온 변경은 조회 결과에 있는지 알 수 없으므로 stale을 유지한다
+    private long generation;
+    //flush 됐지만 아직 post-commit(또는 커밋 실패) 이벤트가 오지 않은 회원/팀 변경 수
+    private long pending;
+    //진행 중인 전체 재계산 - 동시에 들어온 재계산 요청은 새로 조회하지 않고 이 결과를 기다린다
+    private CompletableFuture<Void> rebuilding;
+    private long rebuilds;
+
+    public TeamStatsSummary(EntityManagerFactory emf, PlatformTransactionManager transactionManager) {
+        this.emf = emf;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        PendingChanges pendingChanges = new PendingChanges();
+        registry.appendListeners(EventType.POST_INSERT, pendingChanges);
+        registry.appendListeners(EventType.POST_UPDATE, pendingChanges);
+        registry.appendListeners(EventType.POST_DELETE, pendingChanges);
+    }
+
+    public List<TeamStatsDto> findAll() {
+        synchronized (this) {
+            if (!stale) {
+                return snapshot();
+            }
+        }
+        rebuild(true);
+        synchronized (this) {
+            return snapshot();
+        }
+    }
+
+    //팀과 나이별 회원 수를 한 번에 읽어 요약을 통째로 바꾼다
+    @Scheduled(fixedDelayString = "${app.team-stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        rebuild(false);
+    }
+
+    //onlyIfStale: 앞서 끝난 재계산으로 이미 맞춰졌으면 다시 조회하지 않는다
+    private void rebuild(boolean onlyIfStale) {
+        CompletableFuture<Void> inFlight;
+        long startedAt;
+        synchronized (this) {
+            if (onlyIfStale && !stale) {
+                return;
+            }
+            if (rebuilding != null) {
+                inFlight = rebuilding;
+            } else {
+                rebuilding = new CompletableFuture<>();
+                inFlight = null;
+            }
+            startedAt = generation;
+        }
+        if (inFlight != null) {
+            inFlight.join();
+            return;
+        }
+        try {
+            replace(load(), startedAt);
+            complete(null);
+        } catch (RuntimeException | Error e) {
+            complete(e);
+            throw e;
+        }
+    }
+
+    private synchronized void complete(Throwable failure) {
+        if (failure == null) {
+            rebuilding.complete(null);
+        } else {
+            rebuilding.completeExceptionally(failure);
+        }
+        rebuilding = null;
+    }
+
+    Map<Long, TeamAges> load() {
+        return readOnly.execute(status -> {
+            List<Tuple> rows = new JPAQueryFactory(em)
+                    .select(team.id, team.name, member.age, member.count())
+                    .from(team)
+                    .leftJoin(team.members, member)
+                    .groupBy(team.id, team.name, member.age)
+                    .fetch();
+            Map<Long, TeamAges> result = new HashMap<>();
+            for (Tuple row : rows) {
+                TeamAges ages = result.computeIfAbsent(row.get(team.id), id -> new TeamAges(row.get(team.name)));
+                Integer age = row.get(member.age);
+                if (age != null) {
+                    ages.add(age, row.get(member.count()));
+                }
+            }
+            return result;
+        });
+    }
+
+    //startedAt: 조회를 시작할 때의 generation
+    //조회 중에 이벤트가 왔거나, 이벤트가 아직 오지 않은 변경이 있으면 결과에 그 변경이 있는지 모르므로 stale로 남긴다
+    synchronized void replace(Map<Long, TeamAges> loaded, long startedAt) {
+        teams.clear();
+        teams.putAll(loaded);
+        stale = generation != startedAt || pending > 0;
+        rebuilds++;
+    }
+
+    //지금까지 전체 재계산한 횟수
+    synchronized long getRebuildCount() {
+        return rebuilds;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized boolean isStale() {
+        return stale;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Team inserted) {
+            synchronized (this) {
+                generation++;
+                settle();
+                teams.putIfAbsent(inserted.getId(), new TeamAges(inserted.getName()));
+            }
+        } else if (event.getEntity() instanceof Member) {
+            MemberState state = memberState(event.getPersister(), event.getState());
+            synchronized (this) {
+                generation++;
+                settle();
+                add(state, 1);
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Team updated) {
+            synchronized (this) {
+                generation++;
+                settle();
+                TeamAges ages = teams.get(updated.getId());
+                if (ages == null) {
+                    stale = true;
+                } else {
+                    ages.name = updated.getName();
+                }
+            }
+        } else if (event.getEntity() instanceof Member) {
+            synchronized (this) {
+                generation++;
+                settle();
+                //변경 전 상태를 모르면 차이를 계산할 수 없다
+                if (event.getOldState() == null) {
+                    stale = true;
+                    return;
+                }
+                add(memberState(event.getPersister(), event.getOldState()), -1);
+                add(memberState(event.getPersister(), event.getState()), 1);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Team deleted) {
+            synchronized (this) {
+                generation++;
+                settle();
+                teams.remove(deleted.getId());
+            }
+        } else if (event.getEntity() instanceof Member) {
+            MemberState state = memberState(event.getPersister(), event.getDeletedState());
+            synchronized (this) {
+                generation++;
+                settle();
+                add(state, -1);
+            }
+        }
+    }
+
+    //롤백된 변경은 요약에 반영하지 않고 pending에서만 뺀다
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        commitFailed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        commitFailed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        commitFailed(event.getEntity());
+    }
+
+    private void commitFailed(Object entity) {
+        if (isTracked(entity)) {
+            synchronized (this) {
+                settle();
+            }
+        }
+    }
+
+    //flush 때 센 변경 하나의 post-commit 처리가 끝났다
+    private void settle() {
+        if (pending > 0) {
+            pending--;
+        }
+    }
+
+    private static boolean isTracked(Object entity) {
+        return entity instanceof Member || entity instanceof Team;
+    }
+
+    //MemberBulkRepository의 청크가 끝날 때마다 불린다
+    @Override
+    public synchronized void onBulkWrite() {
+        generation++;
+        stale = true;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> entityClass = persister.getMappedClass();
+        return entityClass == Member.class || entityClass == Team.class;
+    }
+
+    private void add(MemberState state, int delta) {
+        //팀이 없는 회원은 통계에 들어가지 않는다
+        if (state.teamId() == null) {
+            return;
+        }
+        TeamAges ages = teams.get(state.teamId());
+        if (ages == null) {
+            stale = true;
+            return;
+        }
+        ages.add(state.age(), delta);
+    }
+
+    //flush 때(커밋 전) 불리는 이벤트로 post-commit 이벤트를 기다리는 변경을 센다
+    //Hibernate는 flush된 변경마다 커밋 뒤 onPost*나 커밋 실패 시 onPost*CommitFailed 중 하나를 부른다
+    private class PendingChanges implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            flushed(event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            flushed(event.getEntity());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            flushed(event.getEntity());
+        }
+
+        private void flushed(Object entity) {
+            if (isTracked(entity)) {
+                synchronized (TeamStatsSummary.this) {
+                    pending++;
+                }
+            }
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+    }
+
+    private List<TeamStatsDto> snapshot() {
+        return teams.entrySet().stream()
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .sorted(Comparator.comparing(TeamStatsDto::getTeamId))
+                .toList();
+    }
+
+    //나이별 회원 수를 들고 있어 삭제나 나이 변경 뒤에도 max/min을 다시 스캔하지 않고 구한다
+    static final class TeamAges {
+        private String name;
+        private final TreeMap<Integer, Long> countByAge = new TreeMap<>();
+        private long count;
+        private long sum;
+
+        private TeamAges(String name) {
+            this.name = name;
+        }
+
+        private void add(int age, long delta) {
+            countByAge.merge(age, delta, (a, b) -> a + b == 0 ? null : a + b);
+            count += delta;
+            sum += age * delta;
+        }
+
+        private TeamStatsDto toDto(Long teamId) {
+            if (count == 0) {
+                return new TeamStatsDto(teamId, name, 0, 0, null, null, null);
+            }
+            return new TeamStatsDto(teamId, name, count, sum, (double) sum / count,
+                    countByAge.lastKey(), countByAge.firstKey());
+        }
+    }
+
+    private MemberState memberState(EntityPersister persister, Object[] state) {
+        Object memberTeam = state[persister.getPropertyIndex("team")];
+        //팀이 프록시여도 초기화하지 않고 id를 얻는다
+        Long teamId = memberTeam == null ? null : (Long) emf.getPersistenceUnitUtil().getIdentifier(memberTeam);
+        return new MemberState(teamId, (Integer) state[persister.getPropertyIndex("age")]);
+    }
+
+    private record MemberState(Long teamId, int age) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.study.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//운영용 SQL 로그 - 요청 스레드는 남길지 정하고 큐에 넣기만 하며, 출력은 백그라운드 스레드가 한다
+//큐는 락 없는 큐 + 크기 카운터로 제한하고, 가득 차면 기다리지 않고 버린다 (버린 수는 getDropped)
+//같은 모양(바인딩 전 SQL)별로 sampleEvery번에 한 번, 느리거나 실패한 SQL은 항상 남긴다
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.sql-log", name = "enabled", havingValue = "true")
+public class AsyncSqlLogger extends SimpleJdbcEventListener {
+    //IN 절 크기 등으로 모양이 끝없이 늘어나는 경우를 막기 위한 상한 - 넘치면 모양 구분 없이 하나의 카운터로 샘플링한다
+    private static final int MAX_SHAPES = 10_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final SqlLogProperties properties;
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ConcurrentMap<String, AtomicLong> countsBySql = new ConcurrentHashMap<>();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running;
+
+    public AsyncSqlLogger(SqlLogProperties properties) {
+        this.properties = properties;
+        this.worker = new Thread(this::drain, "sql-log");
+        this.worker.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker.start();
+    }
+
+    //종료 시 큐에 남은 로그까지 출력한다
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql == null) {
+            return;
+        }
+        boolean slow = timeElapsedNanos >= properties.getSlowThreshold().toNanos();
+        if (!slow && e == null && !sampled(sql)) {
+            return;
+        }
+        //바인딩 값은 실행 직후에만 정확하므로 남기기로 한 SQL만 여기서 값을 채운다
+        enqueue(new Entry(statementInformation.getSqlWithValues(), timeElapsedNanos, slow, e != null));
+    }
+
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private boolean sampled(String sql) {
+        int sampleEvery = properties.getSampleEvery();
+        if (sampleEvery <= 0) {
+            return false;
+        }
+        AtomicLong count = countsBySql.get(sql);
+        if (count == null) {
+            count = countsBySql.size() < MAX_SHAPES
+                    ? countsBySql.computeIfAbsent(sql, key -> new AtomicLong())
+                    : overflowCount;
+        }
+        return count.getAndIncrement() % sampleEvery == 0;
+    }
+
+    private void enqueue(Entry entry) {
+        if (size.incrementAndGet() > properties.getBufferSize()) {
+            size.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(entry);
+        enqueued.increment();
+    }
+
+    private void drain() {
+        long reportedDropped = 0;
+        while (running || !queue.isEmpty()) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                long droppedNow = dropped.sum();
+                if (droppedNow > reportedDropped) {
+                    log.warn("SQL 로그 큐가 가득 차 {}건을 버렸습니다", droppedNow - reportedDropped);
+                    reportedDropped = droppedNow;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            size.decrementAndGet();
+            write(entry);
+        }
+    }
+
+    private void write(Entry entry) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(entry.elapsedNanos());
+        String sql = entry.sql().replaceAll("\\s+", " ");
+        if (entry.failed()) {
+            log.warn("[failed {}ms] {}", millis, sql);
+        } else if (entry.slow()) {
+            log.warn("[slow {}ms] {}", millis, sql);
+        } else {
+            log.info("[{}ms] {}", millis, sql);
+        }
+    }
+
+    private record Entry(String sql, long elapsedNanos, boolean slow, boolean failed) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.study.sql;
+
+public class ExcessiveQueryException extends RuntimeException {
+
+    public ExcessiveQueryException(String message) {
+        super(message);
+    }
+}
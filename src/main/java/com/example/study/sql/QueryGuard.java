@@ -0,0 +1,41 @@
+package com.example.study.sql;
+
+import lombok.extern.slf4j.Slf4j;
+
+//SQL 수나 같은 SQL 반복 횟수가 기준을 넘으면 경고 로그를 남기거나(WARN) 예외로 실패시킨다(FAIL)
+//위반은 JDBC 실행 중(p6spy 리스너 안)에 감지되므로 그 자리에서는 기록만 하고, FAIL 예외는 구간이 닫힐 때 던진다
+//이미 실행된 SQL 한가운데서 Hibernate에게 다른 예외를 돌려주지 않기 위해서다
+//HTTP 요청에서는 QueryGuardFilter가 응답을 버퍼에 담아 두므로 닫힐 때 던져도 에러 응답으로 바뀐다 (스트리밍 요청 제외)
+@Slf4j
+public class QueryGuard {
+    private final String name;
+    private final QueryGuardProperties properties;
+
+    public QueryGuard(String name, QueryGuardProperties properties) {
+        this.name = name;
+        this.properties = properties;
+    }
+
+    //두 기준 모두 허용하는 최댓값이다 - 넘었을 때(>) 위반
+    boolean isViolated(int count, int repeats) {
+        return count > properties.getMaxStatements() || repeats > properties.getMaxRepeats();
+    }
+
+    //위반 메시지를 돌려준다 - WARN이면 바로 로그를 남긴다
+    String onViolation(SqlStatementScope scope, String sql, int repeats) {
+        String message = repeats > properties.getMaxRepeats()
+                ? String.format("%s: 같은 SQL이 %d번 반복되었습니다 (N+1 의심): %s", name, repeats, sql)
+                : String.format("%s: SQL이 %d개를 넘었습니다 (%d개)", name, properties.getMaxStatements(), scope.getCount());
+        if (properties.getMode() == QueryGuardProperties.Mode.WARN) {
+            log.warn(message);
+        }
+        return message;
+    }
+
+    //구간이 닫힐 때 불린다
+    void onClose(String violation) {
+        if (violation != null && properties.getMode() == QueryGuardProperties.Mode.FAIL) {
+            throw new ExcessiveQueryException(violation);
+        }
+    }
+}
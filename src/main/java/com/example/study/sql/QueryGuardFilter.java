@@ -0,0 +1,62 @@
+package com.example.study.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+
+//HTTP 요청마다 실행된 SQL을 세고 N+1 패턴을 감지한다
+//FAIL 모드에서는 응답 본문을 버퍼에 담아 두었다가, 위반이 있으면 본문을 버리고 예외를 던져 500 에러 응답으로 바꾼다
+//(본문이 먼저 나가 커밋된 뒤에는 상태 코드를 바꿀 수 없기 때문)
+//내보내기처럼 스트리밍하는 요청(noBufferPaths)은 전체를 메모리에 모으지 않도록 버퍼 없이 흘려보낸다
+@Slf4j
+@Component
+public class QueryGuardFilter extends OncePerRequestFilter {
+    private final QueryGuardProperties properties;
+
+    public QueryGuardFilter(QueryGuardProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || properties.getExcludePaths().contains(path(request));
+    }
+
+    //컨텍스트 경로를 뺀 애플리케이션 안의 경로로 비교한다
+    private static String path(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        boolean buffering = properties.getMode() == QueryGuardProperties.Mode.FAIL
+                && !properties.getNoBufferPaths().contains(path(request));
+        HttpServletResponse target = buffering ? new ContentCachingResponseWrapper(response) : response;
+        try (SqlStatementScope scope = SqlStatementScope.open(new QueryGuard(name, properties))) {
+            filterChain.doFilter(request, target);
+            log.debug("{}: {} statements", name, scope.getCount());
+        } catch (ExcessiveQueryException e) {
+            //스트리밍 응답이 이미 나갔다면 상태 코드를 바꿀 수 없으므로 로그만 남긴다
+            if (response.isCommitted()) {
+                log.error("응답이 이미 전송되어 에러 응답으로 바꾸지 못했습니다 - {}", e.getMessage());
+                return;
+            }
+            //핸들러가 쓴 상태 코드, 헤더, 본문을 버리고 컨테이너의 에러 처리(/error)에 넘긴다
+            response.reset();
+            throw e;
+        }
+        if (target instanceof ContentCachingResponseWrapper buffered) {
+            buffered.copyBodyToResponse();
+        }
+    }
+}
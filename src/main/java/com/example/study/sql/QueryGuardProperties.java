@@ -0,0 +1,28 @@
+package com.example.study.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.query-guard")
+public class QueryGuardProperties {
+    private boolean enabled = true;
+    private Mode mode = Mode.WARN;
+    //두 값 모두 허용하는 최댓값이며, 이 값을 넘으면(>) 위반이다
+    //요청 하나에서 허용하는 SQL 수
+    private int maxStatements = 50;
+    //같은 모양의 SQL을 반복해서 실행해도 되는 횟수 - 넘으면 N+1로 본다
+    private int maxRepeats = 10;
+    //대량 적재처럼 SQL이 많은 것이 정상인 요청은 세지 않는다
+    private List<String> excludePaths = List.of("/v1/members/import");
+    //FAIL 모드에서도 응답을 버퍼에 담지 않는 스트리밍 요청 - 첫 flush 이후의 위반은 에러 응답으로 바꾸지 못하고 로그만 남긴다
+    private List<String> noBufferPaths = List.of("/v1/members/export");
+
+    public enum Mode {
+        WARN,
+        FAIL
+    }
+}
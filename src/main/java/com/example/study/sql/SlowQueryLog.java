@@ -0,0 +1,130 @@
+package com.example.study.sql;
+
+import com.example.study.dto.SqlStatsDto;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//p6spy가 가로챈 실행 시간을 SQL fingerprint별로 모아 DB 시간을 많이 쓰는 쿼리를 보여준다
+//fingerprint 계산은 바인딩 전 SQL마다 한 번만 하고, 기록은 락 없이 카운터와 링 버퍼에만 쓴다
+@Component
+public class SlowQueryLog extends SimpleJdbcEventListener {
+    private static final String OTHER = "(other)";
+
+    private final SlowQueryProperties properties;
+    private final ConcurrentMap<String, String> fingerprintBySql = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Stats> statsByFingerprint = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(SlowQueryProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (!properties.isEnabled() || sql == null) {
+            return;
+        }
+        stats(fingerprint(sql)).record(timeElapsedNanos, timeElapsedNanos >= properties.getSlowThreshold().toNanos());
+    }
+
+    //전체 실행 시간이 긴 순으로 limit개
+    public List<SqlStatsDto> top(int limit) {
+        return statsByFingerprint.values().stream()
+                .map(Stats::snapshot)
+                .sorted(Comparator.comparingDouble(SqlStatsDto::getTotalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        statsByFingerprint.clear();
+    }
+
+    private String fingerprint(String sql) {
+        String fingerprint = fingerprintBySql.get(sql);
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+        fingerprint = SqlFingerprint.of(sql);
+        if (fingerprintBySql.size() < properties.getMaxFingerprints()) {
+            fingerprintBySql.putIfAbsent(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private Stats stats(String fingerprint) {
+        Stats stats = statsByFingerprint.get(fingerprint);
+        if (stats != null) {
+            return stats;
+        }
+        String key = statsByFingerprint.size() < properties.getMaxFingerprints() ? fingerprint : OTHER;
+        return statsByFingerprint.computeIfAbsent(key, k -> new Stats(k, properties.getWindowSize()));
+    }
+
+    private static final class Stats {
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        //최근 실행 시간 링 버퍼 - 백분위수는 조회할 때 복사해서 계산한다
+        private final AtomicLongArray window;
+        private final AtomicLong next = new AtomicLong();
+
+        private Stats(String fingerprint, int windowSize) {
+            this.fingerprint = fingerprint;
+            this.window = new AtomicLongArray(windowSize);
+        }
+
+        private void record(long nanos, boolean slow) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (slow) {
+                slowCount.increment();
+            }
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            window.set((int) (next.getAndIncrement() % window.length()), nanos);
+        }
+
+        private SqlStatsDto snapshot() {
+            int size = (int) Math.min(next.get(), window.length());
+            long[] samples = new long[size];
+            for (int i = 0; i < size; i++) {
+                samples[i] = window.get(i);
+            }
+            Arrays.sort(samples);
+
+            long executions = count.sum();
+            long total = totalNanos.sum();
+            return new SqlStatsDto(fingerprint, executions, slowCount.sum(),
+                    millis(total),
+                    executions == 0 ? 0 : millis(total) / executions,
+                    percentile(samples, 0.50),
+                    percentile(samples, 0.95),
+                    percentile(samples, 0.99),
+                    millis(maxNanos.get()));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return millis(sorted[(int) Math.ceil(p * sorted.length) - 1]);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.study.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.slow-query")
+public class SlowQueryProperties {
+    private boolean enabled = true;
+    //이 시간 이상 걸린 실행은 fingerprint별 slowCount로 따로 센다
+    private Duration slowThreshold = Duration.ofMillis(200);
+    //백분위수를 계산할 fingerprint별 최근 실행 시간 개수
+    private int windowSize = 1024;
+    //집계할 fingerprint 수 상한 - 넘치면 나머지는 하나로 묶는다
+    private int maxFingerprints = 1000;
+}
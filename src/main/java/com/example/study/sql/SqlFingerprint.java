@@ -0,0 +1,25 @@
+package com.example.study.sql;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+//SQL에서 리터럴과 주석을 지우고 공백/대소문자/IN 목록 길이를 맞춰 같은 모양의 쿼리를 하나로 묶는 키를 만든다
+public final class SqlFingerprint {
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        String fingerprint = COMMENT.matcher(sql).replaceAll(" ");
+        fingerprint = STRING_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = PARAMETER_LIST.matcher(fingerprint).replaceAll("(?)");
+        fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ");
+        return fingerprint.trim().toLowerCase(Locale.ROOT);
+    }
+}
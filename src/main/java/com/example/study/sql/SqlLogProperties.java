@@ -0,0 +1,19 @@
+package com.example.study.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.sql-log")
+public class SqlLogProperties {
+    private boolean enabled = false;
+    //요청 스레드와 로그 스레드 사이 큐의 최대 크기 - 가득 차면 새 로그는 버린다
+    private int bufferSize = 10_000;
+    //같은 모양의 SQL은 N번에 한 번만 남긴다 (0이면 느린 SQL만 남긴다)
+    private int sampleEvery = 100;
+    //이 시간 이상 걸린 SQL은 샘플링과 상관없이 항상 남긴다
+    private Duration slowThreshold = Duration.ofMillis(200);
+}
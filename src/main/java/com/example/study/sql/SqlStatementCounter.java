@@ -0,0 +1,44 @@
+package com.example.study.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+//p6spy가 가로챈 JDBC 실행(배치는 한 번)을 스레드별로 센다
+//구간 측정은 시작/끝의 current() 차이로 하고, SQL 모양별 집계는 SqlStatementScope로 한다
+//다른 스레드로 넘기는 작업은 propagate()로 감싸야 호출한 스레드의 카운터와 구간에 더해진다
+@Component
+public class SqlStatementCounter extends SimpleJdbcEventListener {
+    private static final ThreadLocal<AtomicLong> COUNT = ThreadLocal.withInitial(AtomicLong::new);
+
+    public static long current() {
+        return COUNT.get().get();
+    }
+
+    //작업이 실행되는 동안 그 스레드의 카운터와 구간을 지금 스레드의 것으로 바꿔 둔다
+    public static <V> Callable<V> propagate(Callable<V> task) {
+        AtomicLong count = COUNT.get();
+        SqlStatementScope scope = SqlStatementScope.current();
+        return () -> {
+            AtomicLong previousCount = COUNT.get();
+            SqlStatementScope previousScope = SqlStatementScope.bind(scope);
+            COUNT.set(count);
+            try {
+                return task.call();
+            } finally {
+                COUNT.set(previousCount);
+                SqlStatementScope.bind(previousScope);
+            }
+        };
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        COUNT.get().incrementAndGet();
+        SqlStatementScope.record(statementInformation.getSql());
+    }
+}
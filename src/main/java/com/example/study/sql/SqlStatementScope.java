@@ -0,0 +1,93 @@
+package com.example.study.sql;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//현재 스레드에서 열린 구간(HTTP 요청, 테스트의 한 호출 등) 동안 실행된 SQL을 SQL 모양별로 센다
+//바인딩 파라미터는 ?로 남아 있으므로 id만 다른 같은 쿼리는 같은 모양으로 묶인다 (N+1 감지)
+//SqlStatementCounter.propagate로 넘긴 작업은 여러 스레드에서 같은 구간에 더하므로 집계는 동기화한다
+public final class SqlStatementScope implements AutoCloseable {
+    private static final ThreadLocal<SqlStatementScope> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatementScope parent;
+    private final QueryGuard guard;
+    private final Map<String, Integer> countsBySql = new HashMap<>();
+    private int count;
+    //처음 감지한 위반 - FAIL 모드면 close()에서 예외로 던진다
+    private String violation;
+
+    private SqlStatementScope(SqlStatementScope parent, QueryGuard guard) {
+        this.parent = parent;
+        this.guard = guard;
+    }
+
+    public static SqlStatementScope open() {
+        return open(null);
+    }
+
+    public static SqlStatementScope open(QueryGuard guard) {
+        SqlStatementScope scope = new SqlStatementScope(CURRENT.get(), guard);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static SqlStatementScope current() {
+        return CURRENT.get();
+    }
+
+    //scope를 현재 스레드의 구간으로 두고 이전 구간을 돌려준다
+    static SqlStatementScope bind(SqlStatementScope scope) {
+        SqlStatementScope previous = CURRENT.get();
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+        return previous;
+    }
+
+    static void record(String sql) {
+        for (SqlStatementScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.add(sql);
+        }
+    }
+
+    private synchronized void add(String sql) {
+        count++;
+        int repeats = countsBySql.merge(sql, 1, Integer::sum);
+        if (guard != null && violation == null && guard.isViolated(count, repeats)) {
+            violation = guard.onViolation(this, sql, repeats);
+        }
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    //minRepeats번 이상 반복된 SQL 모양, 많이 반복된 순
+    public synchronized Map<String, Integer> getRepeated(int minRepeats) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        countsBySql.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minRepeats)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    private synchronized String getViolation() {
+        return violation;
+    }
+
+    @Override
+    public void close() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+        if (guard != null) {
+            guard.onClose(getViolation());
+        }
+    }
+}
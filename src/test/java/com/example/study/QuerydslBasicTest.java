@@ -9,7 +9,6 @@ import com.example.study.entity.QMember;
 import com.example.study.entity.QTeam;
 import com.example.study.entity.Team;
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.QueryResults;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Projections;
@@ -158,17 +157,21 @@ public class QuerydslBasicTest {
     @Test
     public void paging2() {
         JPAQueryFactory queryFactory = new JPAQueryFactory(em);
-        QueryResults<Member> queryResults = queryFactory
+        List<Member> content = queryFactory
                 .selectFrom(member)
                 .orderBy(member.username.desc())
                 .offset(1)
                 .limit(2)
-                .fetchResults();
+                .fetch();
+
+        //fetchResults() 대신 order by 없는 count 쿼리를 따로 실행
+        Long total = queryFactory
+                .select(member.count())
+                .from(member)
+                .fetchOne();
 
-        Assertions.assertThat(queryResults.getTotal()).isEqualTo(4);
-        Assertions.assertThat(queryResults.getLimit()).isEqualTo(2);
-        Assertions.assertThat(queryResults.getOffset()).isEqualTo(1);
-        Assertions.assertThat(queryResults.getResults().size()).isEqualTo(2);
+        Assertions.assertThat(total).isEqualTo(4);
+        Assertions.assertThat(content.size()).isEqualTo(2);
     }
 
     @Test
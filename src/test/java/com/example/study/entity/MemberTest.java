@@ -1,9 +1,13 @@
 package com.example.study.entity;
 
+import com.example.study.sql.QueryCountExtension;
+import com.example.study.sql.QueryCounter;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
@@ -14,6 +18,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(QueryCountExtension.class)
 class MemberTest {
 
     @Autowired
@@ -49,5 +54,60 @@ class MemberTest {
         }
     }
 
+    @Test
+    public void changeTeamDoesNotLoadMembers(QueryCounter queryCounter) {
+        Long[] ids = persistBigTeam();
+        Member member = em.find(Member.class, ids[0]);
+        Team teamA = member.getTeam();
+        Team teamB = em.find(Team.class, ids[1]);
+
+        //팀 변경은 update 한 번 - 기존 팀과 새 팀의 회원 10000명을 읽지 않는다
+        int count = queryCounter.count(() -> {
+            member.changeTeam(teamB);
+            em.flush();
+        });
+
+        assertEquals(1, count);
+        assertFalse(Hibernate.isInitialized(teamB.getMembers()));
+        assertFalse(Hibernate.isInitialized(teamA.getMembers()));
+    }
+
+    @Test
+    public void changeTeamKeepsLoadedMembersInSync() {
+        Long[] ids = persistBigTeam();
+        Member member = em.find(Member.class, ids[0]);
+        Team teamA = member.getTeam();
+        Team teamB = em.find(Team.class, ids[1]);
+        teamA.getMembers().size();
+        teamB.getMembers().size();
+
+        member.changeTeam(teamB);
+
+        assertFalse(teamA.getMembers().contains(member));
+        assertTrue(teamB.getMembers().contains(member));
+    }
+
+    //회원 10000명인 teamA와 빈 teamB를 저장하고 {teamA의 첫 회원 id, teamB id}를 돌려준다
+    private Long[] persistBigTeam() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Long memberId = null;
+        for (int i = 0; i < 10_000; i++) {
+            Member member = new Member("member" + i);
+            member.setTeam(teamA);
+            em.persist(member);
+            if (memberId == null) {
+                memberId = member.getId();
+            }
+        }
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evict(Team.class);
+        return new Long[]{memberId, teamB.getId()};
+    }
+
 
 }
\ No newline at end of file
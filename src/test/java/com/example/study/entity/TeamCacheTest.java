@@ -0,0 +1,108 @@
+package com.example.study.entity;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//2차 캐시는 트랜잭션(영속성 컨텍스트)을 넘어서 동작하므로 트랜잭션을 나눠서 확인한다
+@SpringBootTest
+class TeamCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry registry;
+
+    Statistics statistics;
+    Long teamId;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            teamId = teamA.getId();
+            memberId = member1.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void teamLookupHitsSecondLevelCache() {
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            String name = transactionTemplate.execute(status -> em.find(Team.class, teamId).getName());
+            Assertions.assertThat(name).isEqualTo("teamA");
+        }
+
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+        Assertions.assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void memberTeamAccessHitsSecondLevelCache() {
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            String teamName = transactionTemplate.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+            Assertions.assertThat(teamName).isEqualTo("teamA");
+        }
+
+        //member 조회만 SQL이 나가고 team은 캐시에서 읽는다
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        Assertions.assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void teamRegionHitsAreExposedAsMeter() {
+        //레지스트리와 리전은 같은 컨텍스트를 쓰는 다른 테스트와 공유되므로 호출 전후 차이로 확인한다
+        double hits = regionHits();
+
+        for (int i = 0; i < 3; i++) {
+            transactionTemplate.execute(status -> em.find(Team.class, teamId).getName());
+        }
+
+        Assertions.assertThat(regionHits() - hits).isEqualTo(3);
+        Assertions.assertThat(registry.find("cache.gets").tag("cache", Team.class.getName())
+                .tag("result", "miss").functionCounter()).isNotNull();
+        Assertions.assertThat(registry.find("cache.puts").tag("cache", Team.class.getName())
+                .functionCounter()).isNotNull();
+    }
+
+    private double regionHits() {
+        FunctionCounter counter = registry.find("cache.gets")
+                .tag("cache", Team.class.getName()).tag("result", "hit")
+                .functionCounter();
+        Assertions.assertThat(counter).isNotNull();
+        return counter.count();
+    }
+}
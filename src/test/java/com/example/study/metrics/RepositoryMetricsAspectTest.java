@@ -0,0 +1,66 @@
+package com.example.study.metrics;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.repository.MemberJpaRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void recordsTimerRowsAndStatementsPerShape() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        //레지스트리는 같은 컨텍스트를 쓰는 다른 테스트와 공유되므로 호출 전후 차이로 확인한다
+        double calls = calls();
+        double rows = summaryTotal("repository.rows");
+        double statements = summaryTotal("repository.statements");
+
+        memberJpaRepository.search(condition);
+
+        Assertions.assertThat(calls() - calls).isEqualTo(1);
+        Assertions.assertThat(summaryTotal("repository.rows") - rows).isEqualTo(1);
+        Assertions.assertThat(summaryTotal("repository.statements") - statements).isEqualTo(1);
+    }
+
+    private double calls() {
+        Timer timer = registry.find("repository.calls")
+                .tag("method", "search").tag("shape", "teamName+ageGoe").tag("outcome", "success")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double summaryTotal(String name) {
+        DistributionSummary summary = registry.find(name)
+                .tag("method", "search").tag("shape", "teamName+ageGoe")
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.MemberTeamDto;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.sql.SqlStatementCounter;
+import com.example.study.sql.SqlStatementScope;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//content/count 쿼리가 별도 트랜잭션에서 실행되므로 데이터를 커밋하고 테스트 후 지운다
+@SpringBootTest
+public class ConcurrentPageQueryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("pageQueryExecutor")
+    ExecutorService executor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 7; i++) {
+                em.persist(new Member("member" + i, i * 10, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void sameResultAsSequentialSearchPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+
+        for (int page = 0; page < 3; page++) {
+            PageRequest pageRequest = PageRequest.of(page, 2);
+            Page<MemberTeamDto> concurrent = memberJpaRepository.searchPageConcurrently(condition, pageRequest);
+            Page<MemberTeamDto> sequential = memberJpaRepository.searchPage(condition, pageRequest);
+
+            Assertions.assertThat(concurrent.getContent()).isEqualTo(sequential.getContent());
+            Assertions.assertThat(concurrent.getTotalElements()).isEqualTo(6);
+        }
+    }
+
+    //다른 스레드에서 실행된 content/count SQL도 호출한 스레드에서 센다
+    @Test
+    public void statementsCountedOnCallingThread() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        long before = SqlStatementCounter.current();
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            //두 번째 페이지라 count가 필요하다
+            memberJpaRepository.searchPageConcurrently(condition, PageRequest.of(1, 2));
+
+            Assertions.assertThat(scope.getCount()).isEqualTo(2);
+        }
+        Assertions.assertThat(SqlStatementCounter.current() - before).isEqualTo(2);
+    }
+
+    @Test
+    public void countFailurePropagates() {
+        ConcurrentPageQuery query = query(Duration.ofSeconds(5));
+
+        Assertions.assertThatThrownBy(() -> query.fetchPage(PageRequest.of(0, 2),
+                        () -> List.of("a", "b"),
+                        () -> {
+                            throw new IllegalStateException("count failed");
+                        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("count failed");
+    }
+
+    //content가 끝나기를 기다리지 않고 count 실패를 바로 던지고 content를 취소한다
+    @Test
+    public void countFailureCancelsContentImmediately() {
+        ConcurrentPageQuery query = query(Duration.ofSeconds(10));
+        CountDownLatch contentInterrupted = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        Assertions.assertThatThrownBy(() -> query.fetchPage(PageRequest.of(0, 2),
+                        () -> {
+                            try {
+                                Thread.sleep(5_000);
+                            } catch (InterruptedException e) {
+                                contentInterrupted.countDown();
+                            }
+                            return List.of("a", "b");
+                        },
+                        () -> {
+                            throw new IllegalStateException("count failed");
+                        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("count failed");
+
+        Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        Assertions.assertThat(await(contentInterrupted)).isTrue();
+    }
+
+    @Test
+    public void timeoutCancelsQueries() {
+        ConcurrentPageQuery query = query(Duration.ofMillis(200));
+
+        Assertions.assertThatThrownBy(() -> query.fetchPage(PageRequest.of(0, 2),
+                        () -> {
+                            sleep(5_000);
+                            return List.of("a", "b");
+                        },
+                        () -> 2L))
+                .isInstanceOf(QueryTimeoutException.class);
+    }
+
+    private ConcurrentPageQuery query(Duration timeout) {
+        PageQueryProperties properties = new PageQueryProperties();
+        properties.setTimeout(timeout);
+        return new ConcurrentPageQuery(executor, transactionManager, properties);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
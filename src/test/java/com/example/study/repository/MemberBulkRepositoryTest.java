@@ -0,0 +1,127 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.sql.SqlStatementScope;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+//테스트 트랜잭션 안에서 실행하므로 청크들이 같은 영속성 컨텍스트를 쓴다 - 관리 중인 엔티티가 맞춰지는지 본다
+@SpringBootTest
+@Transactional
+public class MemberBulkRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 25; i++) {
+            em.persist(new Member("member" + i, i, i < 20 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+    }
+
+    @Test
+    public void incrementAgeInChunks() {
+        Member member10 = findByUsername("member10");
+        Member member5 = findByUsername("member5");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+
+        long updated;
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            updated = memberBulkRepository.incrementAge(condition, 1, 4);
+
+            //member10 ~ member19 10명을 4, 4, 2명씩 3번의 update로 나눈다
+            Assertions.assertThat(updateCount(scope.getRepeated(1))).isEqualTo(3);
+        }
+
+        Assertions.assertThat(updated).isEqualTo(10);
+        //clear 없이도 관리 중인 엔티티에 반영되어 있다
+        Assertions.assertThat(member10.getAge()).isEqualTo(11);
+        Assertions.assertThat(member5.getAge()).isEqualTo(5);
+
+        em.clear();
+        Assertions.assertThat(findByUsername("member19").getAge()).isEqualTo(20);
+        Assertions.assertThat(findByUsername("member20").getAge()).isEqualTo(20);
+    }
+
+    @Test
+    public void changeTeamRefreshesLoadedCollections() {
+        Team teamA = em.find(Team.class, teamAId);
+        Team teamB = em.find(Team.class, teamBId);
+        Assertions.assertThat(teamA.getMembers()).hasSize(20);
+        Assertions.assertThat(teamB.getMembers()).hasSize(5);
+        Member member0 = teamA.getMembers().get(0);
+
+        long updated = memberBulkRepository.changeTeam(teamAId, teamBId, 7);
+
+        Assertions.assertThat(updated).isEqualTo(20);
+        Assertions.assertThat(member0.getTeam().getId()).isEqualTo(teamBId);
+        Assertions.assertThat(teamA.getMembers()).isEmpty();
+        Assertions.assertThat(teamB.getMembers()).hasSize(25);
+    }
+
+    @Test
+    public void deleteByDetachesDeletedMembers() {
+        Team teamB = em.find(Team.class, teamBId);
+        Assertions.assertThat(teamB.getMembers()).hasSize(5);
+        Member member22 = findByUsername("member22");
+        Member member3 = findByUsername("member3");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(3);
+        condition.setAgeLoe(22);
+
+        long deleted = memberBulkRepository.deleteBy(condition, 6);
+
+        Assertions.assertThat(deleted).isEqualTo(20);
+        Assertions.assertThat(em.contains(member22)).isFalse();
+        Assertions.assertThat(em.contains(member3)).isFalse();
+        Assertions.assertThat(teamB.getMembers()).extracting("username").containsExactly("member23", "member24");
+    }
+
+    @Test
+    public void deleteWithoutConditionIsRejected() {
+        Assertions.assertThatThrownBy(() -> memberBulkRepository.deleteBy(new MemberSearchCondition()))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Member findByUsername(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+
+    private int updateCount(Map<String, Integer> statements) {
+        return statements.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("update member"))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+}
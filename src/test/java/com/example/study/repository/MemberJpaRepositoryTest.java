@@ -1,20 +1,34 @@
 package com.example.study.repository;
 
+import com.example.study.dto.CursorPage;
+import com.example.study.dto.InvalidSearchRequestException;
 import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.MemberRankDto;
+import com.example.study.dto.MemberSortKey;
+import com.example.study.dto.MemberTeamAvgDto;
 import com.example.study.dto.MemberTeamDto;
 import com.example.study.entity.Member;
 import com.example.study.entity.Team;
+import com.example.study.sql.QueryCountExtension;
+import com.example.study.sql.QueryCounter;
 import jakarta.persistence.EntityManager;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(QueryCountExtension.class)
 public class MemberJpaRepositoryTest {
     @Autowired
     EntityManager em;
@@ -22,6 +36,9 @@ public class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    QueryShapeCache queryShapeCache;
+
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -78,17 +95,243 @@ public class MemberJpaRepositoryTest {
 
         Assertions.assertThat(result).extracting("username").containsExactly("member4");
     }
-}
 
+    @Test
+    public void searchPageTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3);
 
+        Page<MemberTeamDto> result = memberJpaRepository.searchPage(condition, pageRequest);
 
+        Assertions.assertThat(result.getSize()).isEqualTo(3);
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(4);
+        Assertions.assertThat(result.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
 
+        condition.setTeamName("teamB");
+        Page<MemberTeamDto> teamBPage = memberJpaRepository.searchPage(condition, PageRequest.of(0, 1));
 
+        Assertions.assertThat(teamBPage.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(teamBPage.getContent()).extracting("username").containsExactly("member3");
+    }
+
+    @Test
+    public void searchSortTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
 
+        em.persist(new Member("member1", 20, teamB));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 10, teamB));
+        em.persist(new Member("member4", 40, teamA));
 
+        MemberSearchCondition condition = new MemberSearchCondition();
 
+        //나이가 같으면 member.id 순
+        Assertions.assertThat(memberJpaRepository.search(condition, Sort.by(Sort.Direction.DESC, "age")))
+                .extracting("username").containsExactly("member4", "member1", "member2", "member3");
+        Assertions.assertThat(memberJpaRepository.search(condition, Sort.by("teamName").and(Sort.by(Sort.Direction.DESC, "age"))))
+                .extracting("username").containsExactly("member4", "member2", "member1", "member3");
 
+        Page<MemberTeamDto> page = memberJpaRepository.searchPage(condition, PageRequest.of(0, 2, Sort.by("age")));
+        Assertions.assertThat(page.getContent()).extracting("username").containsExactly("member3", "member1");
 
+        //@Repository 예외 변환 대상이 아니라 그대로 전달된다 - ApiExceptionHandler가 400을 돌려준다
+        Assertions.assertThatThrownBy(() -> memberJpaRepository.search(condition, Sort.by("team.id")))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        Assertions.assertThatThrownBy(() -> memberJpaRepository.searchPage(condition, PageRequest.of(0, 2, Sort.by("password"))))
+                .isInstanceOf(InvalidSearchRequestException.class);
 
+        //같은 속성을 두 번 쓰거나 ignoreCase를 요청하면 거부한다
+        Assertions.assertThatThrownBy(() -> memberJpaRepository.search(condition, Sort.by("age").and(Sort.by(Sort.Direction.DESC, "age"))))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        Assertions.assertThatThrownBy(() -> memberJpaRepository.search(condition, Sort.by(Sort.Order.asc("username").ignoreCase())))
+                .isInstanceOf(InvalidSearchRequestException.class);
 
+        //id 뒤의 정렬은 버려지므로 같은 쿼리 모양(QueryShapeCache 항목)을 쓴다
+        memberJpaRepository.search(condition, Sort.by("id"));
+        int shapes = queryShapeCache.size();
+        memberJpaRepository.search(condition, Sort.by("id", "age"));
+        Assertions.assertThat(queryShapeCache.size()).isEqualTo(shapes);
+    }
+
+    @Test
+    public void findAllByIdTest(QueryCounter queryCounter) {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Member member = new Member("member" + i, i % 100);
+            member.setTeam(teamA);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        //요청 순서대로, 없는 id는 빠진다
+        List<Long> requested = new ArrayList<>(ids);
+        Collections.reverse(requested);
+        requested.set(5, -1L);
+
+        List<MemberTeamDto> dtos = queryCounter.assertMaxQueries(10, () -> memberJpaRepository.findAllDtoById(requested));
+        Assertions.assertThat(dtos).hasSize(9_999);
+        Assertions.assertThat(dtos).extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(requested.stream().filter(id -> id > 0).toList());
+        Assertions.assertThat(dtos.get(0).getTeamName()).isEqualTo("teamA");
+
+        List<Member> members = queryCounter.assertMaxQueries(10, () -> memberJpaRepository.findAllById(requested));
+        Assertions.assertThat(members).extracting(Member::getId).containsExactlyElementsOf(requested.stream().filter(id -> id > 0).toList());
+
+        //이미 영속성 컨텍스트에 있는 회원은 다시 조회하지 않는다
+        int count = queryCounter.count(() -> memberJpaRepository.findAllById(ids.subList(0, 100)));
+        Assertions.assertThat(count).isZero();
+    }
+
+    @Test
+    public void windowFunctionTest(QueryCounter queryCounter) {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 30, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 20, teamB));
+        em.persist(new Member("member5", 40, teamB));
+        em.persist(new Member("noTeam", 99));
+        em.flush();
+        em.clear();
+
+        //같은 나이는 같은 순위, 팀이 없는 회원은 빠진다
+        List<MemberRankDto> ranks = queryCounter.assertMaxQueries(1, () -> memberJpaRepository.findRankByAgeWithinTeam());
+        Assertions.assertThat(ranks).extracting("username", "rank").containsExactly(
+                Assertions.tuple("member2", 1L),
+                Assertions.tuple("member3", 1L),
+                Assertions.tuple("member1", 3L),
+                Assertions.tuple("member5", 1L),
+                Assertions.tuple("member4", 2L));
+
+        //teamA 평균 23.3, teamB 평균 30
+        List<MemberTeamAvgDto> older = queryCounter.assertMaxQueries(1, () -> memberJpaRepository.findOlderThanTeamAverage());
+        Assertions.assertThat(older).extracting("username").containsExactly("member2", "member3", "member5");
+        Assertions.assertThat(older.get(2).getTeamAvg()).isEqualTo(30.0);
+    }
 
+    @Test
+    public void searchByCursorTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member(null, 20, teamA));
+        em.persist(new Member("member1", 20, teamA));
+        em.persist(new Member("member2", 10, teamA));
+        em.persist(new Member("member1", 40));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Assertions.assertThat(readAll(condition, MemberSortKey.AGE))
+                .extracting("age").containsExactly(10, 20, 20, 30, 40);
+        Assertions.assertThat(readAll(condition, MemberSortKey.USERNAME))
+                .extracting("username").containsExactly(null, "member1", "member1", "member2", "member3");
+
+        //너무 큰 size는 MAX_CURSOR_PAGE_SIZE로 잘린다 (size + 1이 넘치지 않는다)
+        CursorPage<MemberTeamDto> all = memberJpaRepository.searchByCursor(condition, null, MemberSortKey.ID, Integer.MAX_VALUE);
+        Assertions.assertThat(all.getContent()).hasSize(5);
+        Assertions.assertThat(all.isHasNext()).isFalse();
+
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+        Assertions.assertThat(readAll(condition, MemberSortKey.ID))
+                .extracting("age").containsExactly(30, 20, 20);
+    }
+
+    private List<MemberTeamDto> readAll(MemberSearchCondition condition, MemberSortKey sortKey) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        CursorPage<MemberTeamDto> page = memberJpaRepository.searchByCursor(condition, null, sortKey, 2);
+        result.addAll(page.getContent());
+        while (page.isHasNext()) {
+            page = memberJpaRepository.searchByCursor(condition, page.getNextCursor(), null, 2);
+            result.addAll(page.getContent());
+        }
+        return result;
+    }
+
+    @Test
+    public void searchStreamTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5);
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.searchStream(condition, 2, result::add);
+
+        Assertions.assertThat(result).hasSize(5);
+        Assertions.assertThat(result).extracting("teamName").containsOnly("teamA");
+    }
+
+    @Test
+    public void queryShapeCacheTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+
+        //16가지 조건 조합 모두 where 파라미터 방식과 BooleanBuilder 방식의 결과가 같아야 한다
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((shape & 1) != 0 ? "member2" : null);
+            condition.setTeamName((shape & 2) != 0 ? "teamA" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 15 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 25 : null);
+
+            Assertions.assertThat(memberJpaRepository.search(condition))
+                    .isEqualTo(memberJpaRepository.searchByBuilder(condition));
+        }
+
+        long hits = queryShapeCache.getHitCount();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(25);
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+
+        Assertions.assertThat(queryShapeCache.getHitCount()).isEqualTo(hits + 1);
+        Assertions.assertThat(result).extracting("username").containsExactly("member3");
+    }
+
+    @Test
+    public void searchQueryCountTest(QueryCounter queryCounter) {
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        List<MemberTeamDto> result = queryCounter.assertMaxQueries(1, () -> memberJpaRepository.search(condition));
+        Assertions.assertThat(result).hasSize(5);
+
+        Page<MemberTeamDto> page = queryCounter.assertMaxQueries(2,
+                () -> memberJpaRepository.searchPage(condition, PageRequest.of(1, 2)));
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.MemberTeamDto;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//캐시는 쓰기 트랜잭션 밖에서만 쓰이므로 테스트 전체를 @Transactional로 묶지 않는다
+@SpringBootTest
+public class MemberSearchCacheTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchCache memberSearchCache;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Long member1Id;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            member1Id = member1.getId();
+            teamBId = teamB.getId();
+        });
+        memberSearchCache.invalidateAll();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void cacheHit() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        long hits = memberSearchCache.stats().hitCount();
+        List<MemberTeamDto> first = memberJpaRepository.search(condition);
+        List<MemberTeamDto> second = memberJpaRepository.search(condition);
+
+        Assertions.assertThat(second).isSameAs(first);
+        Assertions.assertThat(memberSearchCache.stats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void invalidatedByChangeTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        Assertions.assertThat(memberJpaRepository.search(condition)).hasSize(2);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = memberJpaRepository.findById(member1Id).get();
+            member1.changeTeam(em.find(Team.class, teamBId));
+        });
+
+        Assertions.assertThat(memberJpaRepository.search(condition))
+                .extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    public void invalidatedBySaveAndBulkUpdate() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(30);
+        Assertions.assertThat(memberJpaRepository.search(condition)).hasSize(2);
+
+        transactionTemplate.executeWithoutResult(status -> memberJpaRepository.save(new Member("member3", 30)));
+        Assertions.assertThat(memberJpaRepository.search(condition)).hasSize(3);
+
+        transactionTemplate.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(100))
+                .where(member.age.lt(28))
+                .execute());
+        Assertions.assertThat(memberJpaRepository.search(condition))
+                .extracting("username").containsExactly("member3");
+    }
+}
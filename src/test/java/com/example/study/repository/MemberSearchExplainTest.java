@@ -0,0 +1,98 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.sql.SqlStatementScope;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+//search의 16가지 조건 조합을 H2 EXPLAIN으로 확인해 인덱스 없이 테이블 전체를 읽는 조합이 없는지 본다
+//조건이 하나도 없는 조합은 전체 조회이므로 제외한다
+@SpringBootTest
+@Transactional
+public class MemberSearchExplainTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < 100; j++) {
+                em.persist(new Member("member" + i + "_" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void everySearchShapeUsesAnIndex() {
+        for (int shape = 1; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            List<Object> params = new ArrayList<>();
+            //where 절의 ? 순서: username, teamName, ageGoe, ageLoe
+            if ((shape & 1) != 0) {
+                condition.setUsername("member1_1");
+                params.add("member1_1");
+            }
+            if ((shape & 2) != 0) {
+                condition.setTeamName("team1");
+                params.add("team1");
+            }
+            if ((shape & 4) != 0) {
+                condition.setAgeGoe(10);
+                params.add(10);
+            }
+            if ((shape & 8) != 0) {
+                condition.setAgeLoe(20);
+                params.add(20);
+            }
+
+            String sql;
+            try (SqlStatementScope scope = SqlStatementScope.open()) {
+                memberJpaRepository.search(condition);
+                Assertions.assertThat(scope.getCount()).isEqualTo(1);
+                sql = scope.getRepeated(1).keySet().iterator().next();
+            }
+
+            String plan = explain(sql, params);
+            Assertions.assertThat(plan)
+                    .as("shape %d: %s", shape, plan)
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    private String explain(String sql, List<Object> params) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                    return plan.toString();
+                }
+            }
+        });
+    }
+}
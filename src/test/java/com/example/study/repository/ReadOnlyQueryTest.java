@@ -0,0 +1,88 @@
+package com.example.study.repository;
+
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//트랜잭션의 읽기 전용 여부에 따라 힌트가 달라지므로 테스트 트랜잭션 없이 커밋된 데이터로 확인한다
+@SpringBootTest
+public class ReadOnlyQueryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void readOnlyTransactionLoadsReadOnlyEntities() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            List<Member> result = memberJpaRepository.findAll_Querydsl();
+
+            Assertions.assertThat(result).hasSize(2);
+            Assertions.assertThat(result).allMatch(session::isReadOnly);
+            Assertions.assertThat(memberJpaRepository.findByUsername("member1")).allMatch(session::isReadOnly);
+        });
+    }
+
+    @Test
+    public void readWriteTransactionKeepsDirtyChecking() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            List<Member> result = memberJpaRepository.findByUsername_Querydsl("member1");
+
+            Assertions.assertThat(result).noneMatch(session::isReadOnly);
+            result.get(0).setAge(11);
+        });
+
+        Integer age = transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(member.age)
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetchOne());
+        Assertions.assertThat(age).isEqualTo(11);
+    }
+}
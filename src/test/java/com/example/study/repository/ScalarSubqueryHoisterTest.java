@@ -0,0 +1,158 @@
+package com.example.study.repository;
+
+import com.example.study.dto.MemberTeamAvgDto;
+import com.example.study.entity.Member;
+import com.example.study.entity.QMember;
+import com.example.study.entity.QTeam;
+import com.example.study.entity.Team;
+import com.example.study.sql.SqlStatementScope;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+public class ScalarSubqueryHoisterTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ScalarSubqueryHoister hoister;
+
+    JPAQueryFactory queryFactory;
+
+    QMember memberSub = new QMember("memberSub");
+    QTeam teamSub = new QTeam("teamSub");
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    //selectSubquery와 같은 쿼리 - 평균 나이는 한 번만 조회되고 회원 조회 SQL에는 서브쿼리가 없다
+    @Test
+    public void hoistsUncorrelatedSubquery() {
+        long rewrites = hoister.getRewriteCount();
+
+        List<Tuple> result;
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            result = hoister.fetch(queryFactory
+                    .select(member.username, JPAExpressions.select(memberSub.age.avg()).from(memberSub))
+                    .from(member)
+                    .orderBy(member.username.asc()));
+
+            Assertions.assertThat(scope.getCount()).isEqualTo(2);
+            Assertions.assertThat(scope.getRepeated(1).keySet())
+                    .filteredOn(sql -> sql.contains("avg("))
+                    .singleElement()
+                    .satisfies(sql -> Assertions.assertThat(sql).doesNotContain("username"));
+        }
+
+        Assertions.assertThat(hoister.getRewriteCount() - rewrites).isEqualTo(1);
+        Assertions.assertThat(result).extracting(tuple -> tuple.get(member.username))
+                .containsExactly("member1", "member2", "member3", "member4");
+        Assertions.assertThat(result)
+                .extracting(tuple -> tuple.get(JPAExpressions.select(memberSub.age.avg()).from(memberSub)))
+                .containsOnly(25.0);
+    }
+
+    //바깥 member를 참조하는 서브쿼리는 row마다 값이 다르므로 그대로 둔다
+    @Test
+    public void keepsCorrelatedSubquery() {
+        long rewrites = hoister.getRewriteCount();
+
+        List<MemberTeamAvgDto> result = hoister.fetch(queryFactory
+                .select(Projections.constructor(MemberTeamAvgDto.class,
+                        member.id, member.username, member.age, team.id, team.name,
+                        JPAExpressions.select(memberSub.age.avg()).from(memberSub).where(memberSub.team.eq(member.team))))
+                .from(member)
+                .join(member.team, team)
+                .orderBy(member.username.asc()));
+
+        Assertions.assertThat(hoister.getRewriteCount()).isEqualTo(rewrites);
+        Assertions.assertThat(result).extracting("teamAvg").containsExactly(15.0, 15.0, 35.0, 35.0);
+    }
+
+    //생성자 projection도 상수 자리를 채워 만든다
+    @Test
+    public void hoistsIntoConstructorProjection() {
+        long rewrites = hoister.getRewriteCount();
+
+        List<MemberTeamAvgDto> result = hoister.fetch(queryFactory
+                .select(Projections.constructor(MemberTeamAvgDto.class,
+                        member.id, member.username, member.age, team.id, team.name,
+                        JPAExpressions.select(memberSub.age.avg()).from(memberSub).join(memberSub.team, teamSub)
+                                .where(teamSub.name.eq("teamB"))))
+                .from(member)
+                .join(member.team, team)
+                .orderBy(member.username.asc()));
+
+        Assertions.assertThat(hoister.getRewriteCount() - rewrites).isEqualTo(1);
+        Assertions.assertThat(result).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4");
+        Assertions.assertThat(result).extracting("teamAvg").containsOnly(35.0);
+    }
+
+    //바깥 쿼리에 바인딩한 Param을 상수로 바꾼 서브쿼리에서도 쓴다
+    @Test
+    public void hoistsSubqueryWithBoundParam() {
+        long rewrites = hoister.getRewriteCount();
+        Param<String> teamName = new Param<>(String.class, "teamName");
+        JPQLQuery<Double> teamAvg = JPAExpressions.select(memberSub.age.avg()).from(memberSub)
+                .join(memberSub.team, teamSub)
+                .where(teamSub.name.eq(teamName));
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.username, teamAvg)
+                .from(member)
+                .orderBy(member.username.asc());
+        query.set(teamName, "teamB");
+        List<Tuple> result = hoister.fetch(query);
+
+        Assertions.assertThat(hoister.getRewriteCount() - rewrites).isEqualTo(1);
+        Assertions.assertThat(result).extracting(tuple -> tuple.get(teamAvg)).containsOnly(35.0);
+    }
+
+    //안쪽 서브쿼리가 바깥과 같은 별칭(member)을 다시 선언해도 바깥 member 참조는 상관 서브쿼리로 본다
+    @Test
+    public void nestedAliasDoesNotHideCorrelation() {
+        JPQLQuery<Double> correlated = JPAExpressions.select(memberSub.age.avg()).from(memberSub)
+                .where(memberSub.team.eq(member.team),
+                        memberSub.age.loe(JPAExpressions.select(member.age.max()).from(member)));
+        JPQLQuery<Double> uncorrelated = JPAExpressions.select(memberSub.age.avg()).from(memberSub)
+                .where(memberSub.age.loe(JPAExpressions.select(member.age.max()).from(member)));
+        //안쪽 서브쿼리가 감싼 서브쿼리의 별칭을 참조하는 것은 바깥과 무관하다
+        JPQLQuery<Double> nestedReference = JPAExpressions.select(memberSub.age.avg()).from(memberSub)
+                .where(JPAExpressions.selectOne().from(teamSub).where(teamSub.eq(memberSub.team)).exists());
+
+        Assertions.assertThat(ScalarSubqueryHoister.isUncorrelated(correlated.getMetadata())).isFalse();
+        Assertions.assertThat(ScalarSubqueryHoister.isUncorrelated(uncorrelated.getMetadata())).isTrue();
+        Assertions.assertThat(ScalarSubqueryHoister.isUncorrelated(nestedReference.getMetadata())).isTrue();
+    }
+}
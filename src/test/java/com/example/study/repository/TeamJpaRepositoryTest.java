@@ -0,0 +1,87 @@
+package com.example.study.repository;
+
+import com.example.study.dto.TeamMembersDto;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.sql.QueryCountExtension;
+import com.example.study.sql.QueryCounter;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(QueryCountExtension.class)
+public class TeamJpaRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+
+    @Test
+    public void findTeamsWithMembersTest(QueryCounter queryCounter) {
+        persistTeams();
+
+        List<TeamMembersDto> result = queryCounter.assertMaxQueries(2,
+                () -> teamJpaRepository.findTeamsWithMembers(PageRequest.of(1, 4)));
+
+        Assertions.assertThat(result).extracting("teamName").containsExactly("team4", "team5", "team6", "team7");
+        Assertions.assertThat(result).extracting(dto -> dto.getMembers().size()).containsExactly(1, 2, 0, 1);
+        Assertions.assertThat(result.get(1).getMembers()).extracting("username")
+                .containsExactly("member5_0", "member5_1");
+    }
+
+    @Test
+    public void findTeamsFetchMembersTest(QueryCounter queryCounter) {
+        persistTeams();
+
+        //팀 id 페이지, fetch join, count 3번
+        Page<Team> result = queryCounter.assertMaxQueries(3,
+                () -> teamJpaRepository.findTeamsFetchMembers(PageRequest.of(1, 4)));
+
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(10);
+        Assertions.assertThat(result.getContent()).extracting("name").containsExactly("team4", "team5", "team6", "team7");
+        Assertions.assertThat(result.getContent()).allMatch(team -> Hibernate.isInitialized(team.getMembers()));
+        Assertions.assertThat(result.getContent()).extracting(team -> team.getMembers().size()).containsExactly(1, 2, 0, 1);
+    }
+
+    @Test
+    public void paginationOverCollectionFetchFails() {
+        persistTeams();
+
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        Assertions.assertThatThrownBy(() -> queryFactory
+                        .selectFrom(team)
+                        .leftJoin(team.members, member).fetchJoin()
+                        .offset(0)
+                        .limit(4)
+                        .fetch())
+                .hasStackTraceContaining("fail_on_pagination_over_collection_fetch");
+    }
+
+    private void persistTeams() {
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < i % 3; j++) {
+                em.persist(new Member("member" + i + "_" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.study.service;
+
+import com.example.study.dto.MemberImportResult;
+import com.example.study.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//importer가 청크마다 커밋하므로 테스트 후 직접 지운다
+@SpringBootTest
+class MemberImporterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberImporter memberImporter;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void importCsv() {
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Team("teamA")));
+
+        MemberImportResult result = memberImporter.importCsv(new StringReader(csv(0, 1_000, -1)), 0, properties());
+
+        //teamA는 이미 있고 teamB, teamC만 새로 만든다
+        Assertions.assertThat(result.getImportedRows()).isEqualTo(1_000);
+        Assertions.assertThat(result.getResumeFrom()).isEqualTo(1_000);
+        Assertions.assertThat(result.getCreatedTeams()).isEqualTo(2);
+        Assertions.assertThat(result.getRowsPerSecond()).isPositive();
+        assertMembersPerTeam(334L, 333L, 333L);
+    }
+
+    @Test
+    public void resumeFromLastCommittedChunk() {
+        //651번째 행(헤더 포함 652번째 줄)의 age가 잘못되어 600행(청크 2개)까지만 커밋된다
+        MemberImportException e = Assertions.catchThrowableOfType(
+                () -> memberImporter.importCsv(new StringReader(csv(0, 1_000, 650)), 0, properties()),
+                MemberImportException.class);
+
+        Assertions.assertThat(e.getResult().getResumeFrom()).isEqualTo(600);
+        Assertions.assertThat(e.getResult().getError()).contains("line 652", "age");
+        Assertions.assertThat(memberCount()).isEqualTo(600);
+
+        //고친 파일을 커밋된 지점부터 다시 적재하면 중복 없이 이어진다
+        MemberImportResult result = memberImporter.importCsv(
+                new StringReader(csv(0, 1_000, -1)), e.getResult().getResumeFrom(), properties());
+
+        Assertions.assertThat(result.getImportedRows()).isEqualTo(400);
+        Assertions.assertThat(result.getResumeFrom()).isEqualTo(1_000);
+        Assertions.assertThat(memberCount()).isEqualTo(1_000);
+        Assertions.assertThat(new JPAQueryFactory(em).select(member.username).distinct().from(member).fetch())
+                .hasSize(1_000);
+    }
+
+    //DB에서 실패한 행은 SQL이나 제약 이름 없이 줄 번호만 알려준다
+    @Test
+    public void databaseErrorIsNotExposed() {
+        String tooLong = "m".repeat(300);
+        MemberImportException e = Assertions.catchThrowableOfType(
+                () -> memberImporter.importCsv(new StringReader("member1,10,teamA\n" + tooLong + ",20,teamA\n"), 0, properties()),
+                MemberImportException.class);
+
+        Assertions.assertThat(e.getResult().getError()).isEqualTo("line 2: 행을 저장하지 못했습니다");
+        Assertions.assertThat(e.getResult().getResumeFrom()).isZero();
+    }
+
+    //헤더가 없는 파일은 username으로 시작하는 이름의 첫 행도 데이터로 적재한다
+    @Test
+    public void importWithoutHeader() {
+        MemberImportResult result = memberImporter.importCsv(
+                new StringReader("username1,20,teamA\nmember2,30,teamA\n"), 0, properties());
+
+        Assertions.assertThat(result.getImportedRows()).isEqualTo(2);
+        Assertions.assertThat(new JPAQueryFactory(em).select(member.username).from(member).orderBy(member.username.asc()).fetch())
+                .containsExactly("member2", "username1");
+
+        //대소문자나 공백이 달라도 헤더는 건너뛴다
+        MemberImportResult withHeader = memberImporter.importCsv(
+                new StringReader("UserName, Age, TeamName\nmember3,40,teamA\n"), 0, properties());
+        Assertions.assertThat(withHeader.getImportedRows()).isEqualTo(1);
+    }
+
+    private MemberImportProperties properties() {
+        MemberImportProperties properties = new MemberImportProperties();
+        properties.setBatchSize(50);
+        properties.setChunkSize(300);
+        return properties;
+    }
+
+    //헤더 + member0 ~ member(to-1), badRow 번째 행은 age를 망가뜨린다
+    private String csv(int from, int to, int badRow) {
+        StringBuilder csv = new StringBuilder("username,age,teamName\n");
+        for (int i = from; i < to; i++) {
+            csv.append("member").append(i).append(',')
+                    .append(i == badRow ? "x" : String.valueOf(i % 100)).append(',')
+                    .append("team").append((char) ('A' + i % 3)).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private long memberCount() {
+        return new JPAQueryFactory(em).select(member.count()).from(member).fetchOne();
+    }
+
+    private void assertMembersPerTeam(Long... counts) {
+        List<Tuple> result = new JPAQueryFactory(em)
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+
+        Assertions.assertThat(result).extracting(tuple -> tuple.get(team.name))
+                .containsExactly("teamA", "teamB", "teamC");
+        Assertions.assertThat(result).extracting(tuple -> tuple.get(member.count()))
+                .containsExactly(counts);
+    }
+}
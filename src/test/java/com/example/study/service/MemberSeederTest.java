@@ -0,0 +1,71 @@
+package com.example.study.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//seeder가 청크마다 커밋하므로 테스트 후 직접 지운다
+@SpringBootTest
+class MemberSeederTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSeeder memberSeeder;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void seed() {
+        SeedProperties properties = new SeedProperties();
+        properties.setMemberCount(1_000);
+        properties.setTeamCount(3);
+        properties.setMinAge(20);
+        properties.setMaxAge(30);
+        properties.setAgeDistribution(SeedProperties.AgeDistribution.UNIFORM);
+        properties.setBatchSize(50);
+        properties.setChunkSize(300);
+
+        memberSeeder.seed(properties);
+
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        List<Tuple> result = queryFactory
+                .select(team.name, member.count(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+
+        Assertions.assertThat(result).extracting(tuple -> tuple.get(team.name))
+                .containsExactly("teamA", "teamB", "teamC");
+        Assertions.assertThat(result).extracting(tuple -> tuple.get(member.count()))
+                .containsExactly(334L, 333L, 333L);
+        Assertions.assertThat(result).allSatisfy(tuple -> {
+            Assertions.assertThat(tuple.get(member.age.min())).isGreaterThanOrEqualTo(20);
+            Assertions.assertThat(tuple.get(member.age.max())).isLessThanOrEqualTo(30);
+        });
+    }
+}
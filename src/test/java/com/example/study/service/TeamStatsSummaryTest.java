@@ -0,0 +1,223 @@
+package com.example.study.service;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.TeamStatsDto;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.repository.MemberBulkRepository;
+import com.example.study.sql.QueryCountExtension;
+import com.example.study.sql.QueryCounter;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.study.entity.QMember.member;
+import static com.example.study.entity.QTeam.team;
+
+//통계는 커밋된 변경만 반영하므로 테스트 트랜잭션 없이 커밋하고 테스트 후 직접 지운다
+@SpringBootTest
+@ExtendWith(QueryCountExtension.class)
+class TeamStatsSummaryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamStatsSummary teamStatsSummary;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+        });
+        //다른 테스트가 벌크 삭제로 남긴 차이를 없앤다
+        teamStatsSummary.reconcile();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        teamStatsSummary.reconcile();
+    }
+
+    @Test
+    public void readsWithoutQueries(QueryCounter queryCounter) {
+        List<TeamStatsDto> stats = queryCounter.assertMaxQueries(0, () -> teamStatsSummary.findAll());
+
+        Assertions.assertThat(stats).isEqualTo(fromDatabase());
+        Assertions.assertThat(stats).extracting("teamName", "count", "avg", "max", "min")
+                .containsExactly(
+                        Assertions.tuple("teamA", 2L, 15.0, 20, 10),
+                        Assertions.tuple("teamB", 2L, 35.0, 40, 30));
+    }
+
+    @Test
+    public void followsCommittedChanges() {
+        //나이 변경
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, member1Id).setAge(50));
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+
+        //팀 변경
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, member1Id).changeTeam(em.find(Team.class, teamBId)));
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+
+        //삭제와 추가
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, member1Id));
+            em.persist(new Member("member5", 5, em.find(Team.class, teamAId)));
+            em.persist(new Team("teamC"));
+        });
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+
+        //롤백된 변경은 반영하지 않는다
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member6", 99, em.find(Team.class, teamAId)));
+            status.setRollbackOnly();
+        });
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+        Assertions.assertThat(teamStatsSummary.findAll()).extracting("teamName", "count", "max", "min")
+                .containsExactly(
+                        Assertions.tuple("teamA", 2L, 20, 5),
+                        Assertions.tuple("teamB", 2L, 40, 30),
+                        Assertions.tuple("teamC", 0L, null, null));
+    }
+
+    //벌크 연산은 엔티티 이벤트가 없으므로 청크가 끝나면 다음 조회 때 다시 계산한다
+    @Test
+    public void recomputesAfterBulkWrites() {
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        memberBulkRepository.incrementAge(condition, 5);
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+
+        memberBulkRepository.changeTeam(teamBId, teamAId);
+        Assertions.assertThat(teamStatsSummary.findAll()).extracting("teamName", "count", "max", "min")
+                .containsExactly(
+                        Assertions.tuple("teamA", 4L, 45, 10),
+                        Assertions.tuple("teamB", 0L, null, null));
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+    }
+
+    //전체 재계산 조회 중에 커밋된 변경은 조회 결과에 있는지 모르므로 바꿔 넣은 뒤에도 다시 계산할 대상으로 남긴다
+    @Test
+    public void changeDuringReconcileKeepsSummaryStale() {
+        long startedAt = teamStatsSummary.generation();
+        var loaded = teamStatsSummary.load();
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, member1Id).setAge(50));
+
+        teamStatsSummary.replace(loaded, startedAt);
+
+        Assertions.assertThat(teamStatsSummary.isStale()).isTrue();
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+        Assertions.assertThat(teamStatsSummary.isStale()).isFalse();
+    }
+
+    //커밋 뒤 post-commit 이벤트가 오기 전에 끝난 재계산은 그 변경을 이미 세었을 수 있다
+    //늦게 온 이벤트가 차이를 한 번 더 더하므로 재계산 결과를 바로 믿지 않고 stale로 남긴다
+    @Test
+    public void lateEventAfterReplaceDoesNotDoubleCount() {
+        long startedAt = teamStatsSummary.generation();
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, member1Id).setAge(50);
+            em.flush();
+            //같은 트랜잭션에서 조회해 커밋된 것처럼 변경이 이미 들어간 결과를 만든다
+            teamStatsSummary.replace(teamStatsSummary.load(), startedAt);
+
+            Assertions.assertThat(teamStatsSummary.isStale()).isTrue();
+        });
+
+        Assertions.assertThat(teamStatsSummary.findAll()).isEqualTo(fromDatabase());
+        Assertions.assertThat(teamStatsSummary.isStale()).isFalse();
+    }
+
+    //동시에 조회해도 전체 재계산은 한 번만 실행되고 모두 같은 결과를 받는다
+    @Test
+    public void concurrentReadsShareOneReconcile() throws Exception {
+        teamStatsSummary.onBulkWrite();
+        long rebuilds = teamStatsSummary.getRebuildCount();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<TeamStatsDto>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return teamStatsSummary.findAll();
+                }));
+            }
+            start.countDown();
+            for (Future<List<TeamStatsDto>> result : results) {
+                Assertions.assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(fromDatabase());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertThat(teamStatsSummary.getRebuildCount() - rebuilds).isEqualTo(1);
+    }
+
+    //QuerydslBasicTest.group과 같은 집계를 DB에서 직접 계산한다 (회원이 없는 팀 포함)
+    private List<TeamStatsDto> fromDatabase() {
+        return transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(team.id, team.name, member.count(), member.age.sum(), member.age.avg(),
+                        member.age.max(), member.age.min())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name)
+                .orderBy(team.id.asc())
+                .fetch()
+                .stream()
+                .map(row -> {
+                    long count = row.get(member.count());
+                    return new TeamStatsDto(row.get(team.id), row.get(team.name), count,
+                            count == 0 ? 0 : row.get(member.age.sum()),
+                            count == 0 ? null : row.get(member.age.avg()),
+                            row.get(member.age.max()),
+                            row.get(member.age.min()));
+                })
+                .toList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.study.sql;
+
+import com.example.study.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+@SpringBootTest(properties = {
+        "app.sql-log.enabled=true",
+        "app.sql-log.sample-every=3",
+        "app.sql-log.slow-threshold=1h"})
+@Transactional
+@ExtendWith(OutputCaptureExtension.class)
+class AsyncSqlLoggerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    AsyncSqlLogger sqlLogger;
+
+    @Autowired
+    SqlLogProperties properties;
+
+    @Test
+    public void samplesEachStatementShape(CapturedOutput output) {
+        long enqueued = sqlLogger.getEnqueued();
+
+        //같은 모양 7번 중 1, 4, 7번째만 남긴다
+        for (int i = 0; i < 7; i++) {
+            findByUsername("sampled" + i);
+        }
+
+        //다른 스레드(스케줄러 등)의 SQL도 같이 기록될 수 있으므로 이 테스트의 SQL만 센다
+        Assertions.assertThat(sqlLogger.getEnqueued() - enqueued).isGreaterThanOrEqualTo(3);
+        awaitUntil(() -> loggedSql(output).contains("'sampled6'"));
+        Assertions.assertThat(loggedSql(output).lines().filter(line -> line.contains("'sampled"))).hasSize(3);
+        Assertions.assertThat(loggedSql(output)).contains("'sampled0'", "'sampled3'").doesNotContain("'sampled1'");
+    }
+
+    @Test
+    public void alwaysLogsSlowStatements(CapturedOutput output) {
+        Duration slowThreshold = properties.getSlowThreshold();
+        properties.setSlowThreshold(Duration.ZERO);
+        try {
+            long enqueued = sqlLogger.getEnqueued();
+            for (int i = 0; i < 3; i++) {
+                findByUsername("slow" + i);
+            }
+
+            Assertions.assertThat(sqlLogger.getEnqueued() - enqueued).isGreaterThanOrEqualTo(3);
+            awaitUntil(() -> loggedSql(output).contains("'slow2'"));
+            Assertions.assertThat(loggedSql(output).lines().filter(line -> line.contains("'slow"))).hasSize(3);
+            Assertions.assertThat(loggedSql(output)).contains("[slow", "'slow1'");
+        } finally {
+            properties.setSlowThreshold(slowThreshold);
+        }
+    }
+
+    private void findByUsername(String username) {
+        em.createQuery("select m from Member m where m.username = :username and m.age >= 0", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+    }
+
+    //p6spy 자체 로그는 JVM 전체 설정이라 다른 테스트 컨텍스트에서 켜져 있을 수 있으므로 이 로거가 남긴 줄만 본다
+    private String loggedSql(CapturedOutput output) {
+        return output.getOut().lines()
+                .filter(line -> line.contains(AsyncSqlLogger.class.getSimpleName()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            Assertions.assertThat(System.nanoTime()).as("로그 스레드가 5초 안에 출력하지 않았습니다").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.study.sql;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+//@ExtendWith(QueryCountExtension.class)를 붙이면 테스트 메서드에서 QueryCounter를 파라미터로 받을 수 있다
+public class QueryCountExtension implements ParameterResolver {
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == QueryCounter.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return new QueryCounter();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.study.sql;
+
+import org.assertj.core.api.Assertions;
+
+import java.util.function.Supplier;
+
+//QueryCountExtension이 테스트 메서드 파라미터로 넣어준다
+public class QueryCounter {
+
+    //call 한 번이 실행하는 SQL이 max개 이하인지 확인한다 (실패하면 반복된 SQL을 보여준다)
+    public <T> T assertMaxQueries(int max, Supplier<T> call) {
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            T result = call.get();
+            Assertions.assertThat(scope.getCount())
+                    .as("SQL 수 (반복된 SQL: %s)", scope.getRepeated(2))
+                    .isLessThanOrEqualTo(max);
+            return result;
+        }
+    }
+
+    public void assertMaxQueries(int max, Runnable call) {
+        assertMaxQueries(max, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public int count(Runnable call) {
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            call.run();
+            return scope.getCount();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.study.sql;
+
+import com.example.study.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class QueryGuardTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void detectsRepeatedStatement() {
+        List<Long> ids = persistMembers(3);
+
+        QueryGuardProperties properties = new QueryGuardProperties();
+        properties.setMode(QueryGuardProperties.Mode.FAIL);
+        properties.setMaxRepeats(2);
+
+        //id만 다른 같은 쿼리를 반복 실행하는 N+1 패턴
+        //SQL 실행 중에는 예외 없이 끝까지 실행되고, 구간이 닫힐 때 실패한다
+        Assertions.assertThatThrownBy(() -> {
+                    try (SqlStatementScope scope = SqlStatementScope.open(new QueryGuard("test", properties))) {
+                        ids.forEach(id -> em
+                                .createQuery("select m from Member m where m.id = :id", Member.class)
+                                .setParameter("id", id)
+                                .getSingleResult());
+                        Assertions.assertThat(scope.getCount()).isEqualTo(3);
+                    }
+                })
+                .isInstanceOf(ExcessiveQueryException.class)
+                .hasMessageContaining("3번 반복");
+    }
+
+    @Test
+    public void allowsStatementsUnderThreshold() {
+        QueryGuardProperties properties = new QueryGuardProperties();
+        properties.setMode(QueryGuardProperties.Mode.FAIL);
+
+        try (SqlStatementScope scope = SqlStatementScope.open(new QueryGuard("test", properties))) {
+            em.createQuery("select m from Member m", Member.class).getResultList();
+            Assertions.assertThat(scope.getCount()).isEqualTo(1);
+        }
+    }
+
+    //FAIL 모드에서는 핸들러가 쓴 본문이 클라이언트에 나가기 전에 위반으로 실패해야 한다
+    @Test
+    public void failModeDiscardsResponseBody() {
+        List<Long> ids = persistMembers(3);
+        QueryGuardProperties properties = new QueryGuardProperties();
+        properties.setMode(QueryGuardProperties.Mode.FAIL);
+        properties.setMaxRepeats(2);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Assertions.assertThatThrownBy(() -> new QueryGuardFilter(properties).doFilter(
+                        new MockHttpServletRequest("GET", "/v1/members"), response, (req, res) -> {
+                            ids.forEach(id -> em.find(Member.class, id));
+                            res.getWriter().write("[]");
+                        }))
+                .isInstanceOf(ExcessiveQueryException.class);
+        Assertions.assertThat(response.isCommitted()).isFalse();
+        Assertions.assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void failModeWritesBodyUnderThreshold() throws Exception {
+        QueryGuardProperties properties = new QueryGuardProperties();
+        properties.setMode(QueryGuardProperties.Mode.FAIL);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new QueryGuardFilter(properties).doFilter(new MockHttpServletRequest("GET", "/v1/members"), response,
+                (req, res) -> res.getWriter().write("[]"));
+
+        Assertions.assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    //noBufferPaths의 스트리밍 응답은 버퍼 없이 바로 나가고, flush 이후의 위반은 응답을 건드리지 않는다
+    @Test
+    public void failModeStreamsNoBufferPath() throws Exception {
+        List<Long> ids = persistMembers(3);
+        QueryGuardProperties properties = new QueryGuardProperties();
+        properties.setMode(QueryGuardProperties.Mode.FAIL);
+        properties.setMaxRepeats(2);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new QueryGuardFilter(properties).doFilter(new MockHttpServletRequest("GET", "/v1/members/export"), response,
+                (req, res) -> {
+                    res.getWriter().write("{}\n");
+                    res.flushBuffer();
+                    Assertions.assertThat(response.isCommitted()).isTrue();
+                    ids.forEach(id -> em.find(Member.class, id));
+                });
+
+        Assertions.assertThat(response.getContentAsString()).isEqualTo("{}\n");
+    }
+
+    //excludePaths는 컨텍스트 경로를 뺀 경로로 비교한다
+    @Test
+    public void excludePathsIgnoreContextPath() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/v1/members/import");
+        request.setContextPath("/app");
+
+        Assertions.assertThat(new QueryGuardFilter(new QueryGuardProperties()).shouldNotFilter(request)).isTrue();
+    }
+
+    private List<Long> persistMembers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member("member" + i, i);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+        return ids;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.study.sql;
+
+import com.example.study.dto.MemberSearchCondition;
+import com.example.study.dto.SqlStatsDto;
+import com.example.study.entity.Member;
+import com.example.study.entity.Team;
+import com.example.study.repository.MemberJpaRepository;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class SlowQueryLogTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    SlowQueryLog slowQueryLog;
+
+    @Test
+    public void fingerprintStripsLiteralsAndInLists() {
+        String a = SqlFingerprint.of("SELECT *  FROM member m /* search */ WHERE m.username = 'it''s' AND m.age >= 10 AND m.team_id IN (?, ?, ?)");
+        String b = SqlFingerprint.of("select * from member m where m.username = 'other'\n and m.age >= 20 and m.team_id in (?)");
+
+        Assertions.assertThat(a).isEqualTo(b)
+                .isEqualTo("select * from member m where m.username = ? and m.age >= ? and m.team_id in (?)");
+        //식별자 안의 숫자는 남긴다
+        Assertions.assertThat(SqlFingerprint.of("select m1_0.member_id from member m1_0")).contains("m1_0");
+    }
+
+    @Test
+    public void topReportsHeaviestFingerprint() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+        em.flush();
+        slowQueryLog.reset();
+
+        //ageGoe만 있는 검색을 여러 번, 다른 모양은 한 번
+        for (int i = 0; i < 20; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(i % 10);
+            memberJpaRepository.search(condition);
+        }
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member1");
+        memberJpaRepository.search(byUsername);
+
+        List<SqlStatsDto> top = slowQueryLog.top(10);
+        SqlStatsDto ageGoe = top.stream()
+                .filter(stats -> stats.getFingerprint().contains("m1_0.age>=?"))
+                .findFirst()
+                .orElseThrow();
+
+        Assertions.assertThat(ageGoe.getCount()).isEqualTo(20);
+        Assertions.assertThat(ageGoe.getP50Millis()).isLessThanOrEqualTo(ageGoe.getP99Millis());
+        Assertions.assertThat(ageGoe.getP99Millis()).isLessThanOrEqualTo(ageGoe.getMaxMillis());
+        Assertions.assertThat(top).extracting(SqlStatsDto::getTotalMillis)
+                .isSortedAccordingTo((x, y) -> Double.compare(y, x));
+        Assertions.assertThat(slowQueryLog.top(1)).hasSize(1);
+    }
+}